@@ -2,8 +2,10 @@ package itu.cloud.roadworks;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RoadworksApplication {
 
 	public static void main(String[] args) {
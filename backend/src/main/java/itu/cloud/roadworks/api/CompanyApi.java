@@ -11,7 +11,10 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import itu.cloud.roadworks.model.Company;
 import itu.cloud.roadworks.repository.CompanyRepository;
+import itu.cloud.roadworks.service.SignalementReadModelProjector;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +28,7 @@ import java.util.Map;
 public class CompanyApi {
 
     private final CompanyRepository repository;
+    private final SignalementReadModelProjector readModelProjector;
 
     @Operation(
             summary = "Liste toutes les entreprises",
@@ -76,7 +80,7 @@ public class CompanyApi {
             summary = "Crée une nouvelle entreprise",
             description = """
                     Ajoute une nouvelle entreprise au système avec ses informations de contact et d'identification.
-                    Le SIRET doit être unique dans le système.
+                    Le nom et le SIRET doivent être uniques dans le système.
                     """
     )
     @ApiResponses(value = {
@@ -87,14 +91,21 @@ public class CompanyApi {
             ),
             @ApiResponse(
                     responseCode = "400",
-                    description = "Données invalides ou SIRET déjà existant"
+                    description = "Données invalides, nom ou SIRET déjà existant"
             )
     })
     @SecurityRequirement(name = "bearerAuth")
     @PostMapping
-    public Company create(
+    public ResponseEntity<?> create(
             @Parameter(description = "Données de l'entreprise (name, siret, address, email, phone)")
             @RequestBody Map<String, String> request) {
+        if (repository.existsByName(request.get("name"))) {
+            return nameAlreadyUsed();
+        }
+        if (repository.existsBySiret(request.get("siret"))) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Ce SIRET est déjà utilisé par une autre entreprise"));
+        }
         Company company = Company.builder()
                 .name(request.get("name"))
                 .email(request.get("email"))
@@ -102,7 +113,13 @@ public class CompanyApi {
                 .address(request.get("address"))
                 .siret(request.get("siret"))
                 .build();
-        return repository.save(company);
+        try {
+            return ResponseEntity.ok(repository.save(company));
+        } catch (DataIntegrityViolationException e) {
+            // Création concurrente avec le même nom ou SIRET
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Nom ou SIRET déjà utilisé par une autre entreprise"));
+        }
     }
 
     @Operation(
@@ -114,6 +131,10 @@ public class CompanyApi {
                     responseCode = "200",
                     description = "Entreprise mise à jour avec succès"
             ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Nom déjà utilisé par une autre entreprise"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Entreprise non trouvée"
@@ -126,13 +147,25 @@ public class CompanyApi {
             @PathVariable Long id,
             @Parameter(description = "Données de mise à jour")
             @RequestBody Map<String, String> request) {
-        return repository.findById(id)
+        if (request.containsKey("name") && repository.existsByNameAndIdNot(request.get("name"), id)) {
+            return nameAlreadyUsed();
+        }
+        return repository.findForUpdate(id)
                 .map(company -> {
                     if (request.containsKey("name")) company.setName(request.get("name"));
                     if (request.containsKey("email")) company.setEmail(request.get("email"));
                     if (request.containsKey("phone")) company.setPhone(request.get("phone"));
                     if (request.containsKey("address")) company.setAddress(request.get("address"));
-                    return ResponseEntity.ok(repository.save(company));
+                    Company saved;
+                    try {
+                        saved = repository.save(company);
+                    } catch (DataIntegrityViolationException e) {
+                        // Nom pris entre le contrôle et l'écriture
+                        return nameAlreadyUsed();
+                    }
+                    // Le nom de l'entreprise est recopié dans le modèle de lecture des signalements
+                    if (request.containsKey("name")) readModelProjector.refreshCompany(saved.getId());
+                    return ResponseEntity.ok(saved);
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -162,5 +195,10 @@ public class CompanyApi {
         }
         return ResponseEntity.notFound().build();
     }
+
+    private static ResponseEntity<?> nameAlreadyUsed() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", "Ce nom est déjà utilisé par une autre entreprise"));
+    }
 }
 
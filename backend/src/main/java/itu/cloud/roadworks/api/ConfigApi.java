@@ -0,0 +1,97 @@
+package itu.cloud.roadworks.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import itu.cloud.roadworks.dto.ConfigDto;
+import itu.cloud.roadworks.model.Account;
+import itu.cloud.roadworks.service.AuthService;
+import itu.cloud.roadworks.service.ConfigService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/config")
+@RequiredArgsConstructor
+@Tag(name = "Configuration", description = "Configuration système: blocage des comptes et durée des sessions")
+public class ConfigApi {
+
+    private static final String ROLE_MANAGER = "manager";
+
+    private final ConfigService configService;
+    private final AuthService authService;
+
+    @Operation(
+            summary = "Configuration courante",
+            description = "Valeurs utilisées par cette instance (copie en mémoire de la table config)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Configuration récupérée avec succès",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ConfigDto.class))
+            )
+    })
+    @GetMapping
+    public ConfigDto get() {
+        return toDto(configService.get());
+    }
+
+    @Operation(
+            summary = "Modifier la configuration",
+            description = """
+                    Modifie la configuration système (réservé aux managers). Les champs absents ne sont pas modifiés.
+                    Les nouvelles valeurs s'appliquent sans redémarrage sur toutes les instances.
+                    La durée de session ne s'applique qu'aux sessions ouvertes ensuite.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Configuration modifiée",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ConfigDto.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Valeur invalide"),
+            @ApiResponse(responseCode = "401", description = "Token invalide ou expiré"),
+            @ApiResponse(responseCode = "403", description = "Réservé aux managers")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PutMapping
+    public ResponseEntity<?> update(
+            @Parameter(description = "Token Bearer d'authentification", required = true)
+            @RequestHeader("Authorization") String token,
+            @RequestBody ConfigDto request) {
+        Optional<Account> account = authService.validateToken(token.replace("Bearer ", ""));
+        if (account.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Token invalide ou expiré"));
+        }
+        if (!ROLE_MANAGER.equals(account.get().getRole().getLibelle())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Réservé aux managers"));
+        }
+        try {
+            return ResponseEntity.ok(toDto(configService.update(request.getMaxAttempts(), request.getSessionDuration())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static ConfigDto toDto(ConfigService.Settings settings) {
+        return ConfigDto.builder()
+                .maxAttempts(settings.maxAttempts())
+                .sessionDuration(settings.sessionDuration())
+                .build();
+    }
+}
@@ -9,19 +9,40 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import itu.cloud.roadworks.config.ContentNegotiationConfig;
+import itu.cloud.roadworks.dto.SignalementChangesDto;
+import itu.cloud.roadworks.dto.SignalementClusterDto;
 import itu.cloud.roadworks.dto.SignalementDto;
+import itu.cloud.roadworks.dto.SignalementPageDto;
 import itu.cloud.roadworks.dto.SignalementPhotoDto;
+import itu.cloud.roadworks.dto.SignalementPhotoRef;
 import itu.cloud.roadworks.dto.SignalementProblemDto;
+import itu.cloud.roadworks.dto.SyncJobDto;
+import itu.cloud.roadworks.model.SignalementPhoto;
+import itu.cloud.roadworks.service.PhotoService;
 import itu.cloud.roadworks.service.SecurityLogService;
+import itu.cloud.roadworks.service.SignalementExportService;
 import itu.cloud.roadworks.service.SignalementService;
+import itu.cloud.roadworks.service.SyncJobService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/signalements")
@@ -29,7 +50,16 @@ import java.util.Map;
 @Tag(name = "Signalements", description = "API de gestion des signalements d'incidents et travaux routiers")
 public class SignalementApi {
 
+    // Attributs de requête de Tomcat pour l'envoi d'un fichier par sendfile (fin exclue)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final SignalementService service;
+    private final PhotoService photoService;
+    private final SignalementExportService exportService;
+    private final SyncJobService syncJobService;
     private final SecurityLogService securityLogService;
     private final HttpServletRequest request;
 
@@ -41,23 +71,252 @@ public class SignalementApi {
                     - Statut actuel (nouveau, en cours, résolu, rejeté)
                     - Entreprise responsable des réparations
                     - Estimations de coût et durée
+
+                    Mode paginé: si 'size' ou 'cursor' est fourni, renvoie une page (du plus récent au plus ancien)
+                    avec le curseur 'nextCursor' à repasser pour obtenir la page suivante.
+
+                    Mode zone: si 'bbox' est fourni (minLng,minLat,maxLng,maxLat), renvoie les marqueurs
+                    des signalements actifs de la zone, servis depuis l'index spatial en mémoire.
+
+                    La réponse porte un ETag dérivé de la dernière version de changement: une requête
+                    If-None-Match reçoit 304 tant qu'aucun signalement n'a changé.
                     """
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Liste des signalements récupérée avec succès",
+                    description = "Liste des signalements (ou page de signalements en mode paginé) récupérée avec succès",
                     content = @Content(
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = SignalementProblemDto.class))
                     )
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Aucun changement depuis l'ETag fourni"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Curseur de pagination ou bbox invalide"
             )
     })
     @GetMapping
-    public List<SignalementProblemDto> findAll() {
+    public ResponseEntity<?> findAll(
+            @Parameter(description = "Zone de la carte: minLng,minLat,maxLng,maxLat", example = "47.48,-18.95,47.56,-18.85")
+            @RequestParam(required = false) String bbox,
+            @Parameter(description = "Curseur renvoyé par la page précédente (nextCursor)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de signalements par page (mode paginé)")
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         String username = request.getHeader("X-Username");
         securityLogService.logViewAllSignalements(null, username, getClientIp(), request.getHeader("User-Agent"));
-        return service.findAllProblems();
+
+        // Toute écriture incrémente la version: tant qu'elle ne bouge pas, la réponse est identique
+        // (pour un même encodage: JSON, CBOR ou Smile selon Accept)
+        String etag = "\"signalements-" + service.currentChangeVersion() + "-"
+                + ContentNegotiationConfig.negotiatedEncoding(request.getHeader(HttpHeaders.ACCEPT)) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache());
+
+        if (bbox != null) {
+            try {
+                return ok.body(service.findMarkersInBox(bbox));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", e.getMessage()));
+            }
+        }
+        if (cursor == null && size == null) {
+            return ok.body(service.findAllProblems());
+        }
+        try {
+            SignalementPageDto page = service.findProblemsPage(cursor, size);
+            return ok.body(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(
+            summary = "Flux de changements des signalements",
+            description = """
+                    Renvoie uniquement les signalements créés, modifiés ou supprimés après la version 'since',
+                    avec la nouvelle version à repasser au prochain appel. Premier appel: since=0.
+                    Si 'hasMore' est vrai, rappeler immédiatement avec la version renvoyée.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Changements depuis la version demandée",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SignalementChangesDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Version invalide"
+            )
+    })
+    @GetMapping("/changes")
+    public ResponseEntity<?> findChanges(
+            @Parameter(description = "Dernière version reçue (0 pour tout recevoir)", example = "0")
+            @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Nombre maximal de changements renvoyés")
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(service.findChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(
+            summary = "Rechercher des signalements",
+            description = """
+                    Recherche plein texte dans les descriptions (racinisation française: "fissures" trouve "fissure").
+                    Syntaxe de type moteur de recherche: mots, "expression exacte", -exclusion, OR.
+                    Résultats classés par pertinence, paginés par curseur ('nextCursor'), et combinables
+                    avec les filtres type de problème, statut courant et zone (bbox).
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page de résultats classés par pertinence",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SignalementPageDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Recherche vide, statut, bbox ou curseur invalide"
+            )
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @Parameter(description = "Texte recherché", required = true, example = "nid de poule école")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Type de problème", example = "pothole")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "Statut courant", example = "nouveau")
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Zone de la carte: minLng,minLat,maxLng,maxLat")
+            @RequestParam(required = false) String bbox,
+            @Parameter(description = "Curseur renvoyé par la page précédente (nextCursor)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de résultats par page")
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(service.searchProblems(q, type, status, bbox, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(
+            summary = "Exporter tous les signalements",
+            description = """
+                    Exporte les signalements en flux, par id croissant: NDJSON (un objet JSON par ligne, même format
+                    que la liste) ou CSV. Les lignes sont lues par un curseur côté serveur et envoyées au fil de l'eau,
+                    sans charger l'ensemble en mémoire.
+                    Filtres: statut courant, type de problème, zone (bbox). Reprise: afterId = dernier id reçu.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Flux NDJSON (application/x-ndjson) ou CSV (text/csv)"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Format, statut ou bbox invalide"
+            )
+    })
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            @Parameter(description = "Format: ndjson (défaut) ou csv", example = "ndjson")
+            @RequestParam(required = false) String format,
+            @Parameter(description = "Statut courant", example = "en_cours")
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Type de problème", example = "pothole")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "Zone de la carte: minLng,minLat,maxLng,maxLat")
+            @RequestParam(required = false) String bbox,
+            @Parameter(description = "Reprendre après cet id (exclu)", example = "0")
+            @RequestParam(required = false) Long afterId) {
+        SignalementExportService.Format exportFormat;
+        SignalementExportService.Filter filter;
+        try {
+            exportFormat = SignalementExportService.Format.parse(format);
+            filter = exportService.resolveFilter(status, type, bbox, afterId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        String username = request.getHeader("X-Username");
+        securityLogService.logViewAllSignalements(null, username, getClientIp(), request.getHeader("User-Agent"));
+
+        StreamingResponseBody body = out -> exportService.export(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"signalements." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Groupes de signalements pour la carte",
+            description = """
+                    Renvoie les signalements actifs de la zone agrégés par cellule de carte pour le niveau de zoom donné:
+                    nombre, barycentre et répartition par type de problème et par statut.
+                    Les groupes sont lus dans une grille hiérarchique maintenue en mémoire à chaque création
+                    ou changement de statut, sans requête en base.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Groupes de la zone",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = SignalementClusterDto.class))
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "bbox ou zoom invalide"
+            )
+    })
+    @GetMapping("/clusters")
+    public ResponseEntity<?> findClusters(
+            @Parameter(description = "Zone de la carte: minLng,minLat,maxLng,maxLat", required = true, example = "47.48,-18.95,47.56,-18.85")
+            @RequestParam String bbox,
+            @Parameter(description = "Niveau de zoom de la carte (0 à 18)", required = true, example = "13")
+            @RequestParam int zoom) {
+        try {
+            List<SignalementClusterDto> clusters = service.findClusters(bbox, zoom);
+            return ResponseEntity.ok(clusters);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
     }
 
     private String getClientIp() {
@@ -116,33 +375,57 @@ public class SignalementApi {
     @Operation(
             summary = "Synchroniser les données depuis Firebase",
             description = """
-                    Récupère tous les signalements depuis Firebase et les insère dans la base de données locale.
+                    Récupère les nouveaux signalements depuis Firebase et les insère dans la base de données locale.
+                    Seuls les documents postérieurs à la dernière synchronisation (createdAt) sont lus.
+                    Avec full=true, toute la collection est relue (documents sans createdAt compris).
                     Les signalements existants ne sont pas dupliqués (détection par firebase_id).
+                    La synchronisation s'exécute en arrière-plan: la réponse contient l'identifiant du travail,
+                    à suivre par GET /sync/jobs/{jobId}. Un import déjà en cours est retourné au lieu d'en lancer un second.
                     """
     )
     
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Synchronisation lancée (ou déjà en cours)",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SyncJobDto.class))
+            )
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping("/sync/firebase")
+    public ResponseEntity<?> syncFromFirebase(
+            @Parameter(description = "Relire toute la collection au lieu des seuls nouveaux documents")
+            @RequestParam(defaultValue = "false") boolean full) {
+        return submitSyncJob(SyncJobService.Kind.IMPORT, full);
+    }
+
+    @Operation(
+            summary = "Compteurs de la dernière synchronisation depuis Firebase",
+            description = """
+                    Pour chaque étage de l'import (lecture, analyse, écriture): documents traités, temps de travail,
+                    temps d'attente sur les files et débit. L'étage au plus faible débit limite la synchronisation.
+                    """
+    )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Synchronisation effectuée avec succès",
+                    description = "Compteurs de la dernière synchronisation",
                     content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Aucune synchronisation depuis le démarrage"
             )
     })
     @SecurityRequirement(name = "bearerAuth")
-    @PostMapping("/sync/firebase")
-    public ResponseEntity<?> syncFromFirebase() {
-        try {
-            int count = service.syncFromFirebase();
-            String username = request.getHeader("X-Username");
-            securityLogService.logSyncFirebase(null, username, getClientIp(), request.getHeader("User-Agent"));
-            return ResponseEntity.ok().body(Map.of(
-                    "message", "Synchronisation effectuée avec succès",
-                    "imported", count
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", e.getMessage()));
+    @GetMapping("/sync/firebase/stats")
+    public ResponseEntity<?> getSyncFromFirebaseStats() {
+        var stats = service.getLastImportStats();
+        if (stats == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Aucune synchronisation depuis le démarrage"));
         }
+        return ResponseEntity.ok(stats);
     }
 
     @Operation(
@@ -150,30 +433,20 @@ public class SignalementApi {
             description = """
                     Envoie tous les signalements créés localement (sans firebase_id) vers Firebase
                     pour qu'ils soient visibles dans l'application mobile.
+                    L'export s'exécute en arrière-plan, à suivre par GET /sync/jobs/{jobId}.
                     """
     )
     @ApiResponses(value = {
             @ApiResponse(
-                    responseCode = "200",
-                    description = "Export effectué avec succès",
-                    content = @Content(mediaType = "application/json")
+                    responseCode = "202",
+                    description = "Export lancé (ou déjà en cours)",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SyncJobDto.class))
             )
     })
     @SecurityRequirement(name = "bearerAuth")
     @PostMapping("/sync/to-firebase")
     public ResponseEntity<?> syncToFirebaseAll() {
-        try {
-            int count = service.exportLocalSignalementsToFirebase();
-            String username = request.getHeader("X-Username");
-            securityLogService.logSyncFirebase(null, username, getClientIp(), request.getHeader("User-Agent"));
-            return ResponseEntity.ok().body(Map.of(
-                    "message", "Export vers Firebase effectué avec succès",
-                    "exported", count
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", e.getMessage()));
-        }
+        return submitSyncJob(SyncJobService.Kind.EXPORT, false);
     }
 
     @Operation(
@@ -181,25 +454,102 @@ public class SignalementApi {
             description = """
                     Met à jour les statuts de tous les signalements existants dans Firebase
                     pour que l'application mobile affiche les derniers changements de statut.
+                    La synchronisation s'exécute en arrière-plan, à suivre par GET /sync/jobs/{jobId}.
                     """
     )
     @ApiResponses(value = {
             @ApiResponse(
-                    responseCode = "200",
-                    description = "Synchronisation des statuts effectuée avec succès",
-                    content = @Content(mediaType = "application/json")
+                    responseCode = "202",
+                    description = "Synchronisation des statuts lancée (ou déjà en cours)",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SyncJobDto.class))
             )
     })
     @SecurityRequirement(name = "bearerAuth")
     @PostMapping("/sync/status-to-firebase")
     public ResponseEntity<?> syncStatusToFirebase() {
+        return submitSyncJob(SyncJobService.Kind.STATUS, false);
+    }
+
+    @Operation(
+            summary = "Suivre une synchronisation Firebase",
+            description = """
+                    État d'un travail lancé par /sync/firebase, /sync/to-firebase ou /sync/status-to-firebase:
+                    PENDING, RUNNING, SUCCEEDED ou FAILED, éléments traités (et total s'il est connu),
+                    nombre de signalements importés, exportés ou synchronisés une fois terminé.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "État du travail",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SyncJobDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Travail inconnu (ou trop ancien)"
+            )
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/sync/jobs/{jobId}")
+    public ResponseEntity<?> getSyncJob(
+            @Parameter(description = "Identifiant du travail", required = true)
+            @PathVariable String jobId) {
+        return syncJobService.find(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Travail de synchronisation non trouvé: " + jobId)));
+    }
+
+    @Operation(
+            summary = "Dernières synchronisations Firebase",
+            description = "Travaux de synchronisation en cours et récents, du plus récent au plus ancien."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Liste des travaux",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = SyncJobDto.class)))
+            )
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/sync/jobs")
+    public ResponseEntity<List<SyncJobDto>> getSyncJobs() {
+        return ResponseEntity.ok(syncJobService.findRecent());
+    }
+
+    // 202 avec l'état du travail et son URL de suivi
+    private ResponseEntity<?> submitSyncJob(SyncJobService.Kind kind, boolean full) {
+        SyncJobDto job = syncJobService.submit(kind, full, "api");
+        String username = request.getHeader("X-Username");
+        securityLogService.logSyncFirebase(null, username, getClientIp(), request.getHeader("User-Agent"));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/signalements/sync/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @Operation(
+            summary = "Reconstruire le modèle de lecture",
+            description = """
+                    Recalcule toutes les lignes de signalement_read_model depuis les tables sources
+                    puis recharge l'index spatial. À utiliser après une modification directe en base.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Modèle de lecture reconstruit avec succès",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping("/read-model/rebuild")
+    public ResponseEntity<?> rebuildReadModel() {
         try {
-            int count = service.syncAllStatusToFirebase();
-            String username = request.getHeader("X-Username");
-            securityLogService.logSyncFirebase(null, username, getClientIp(), request.getHeader("User-Agent"));
+            int count = service.rebuildReadModel();
             return ResponseEntity.ok().body(Map.of(
-                    "message", "Synchronisation des statuts vers Firebase effectuée avec succès",
-                    "synced", count
+                    "message", "Modèle de lecture reconstruit avec succès",
+                    "rebuilt", count
             ));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -312,28 +662,46 @@ public class SignalementApi {
             @PathVariable Long id) {
         String username = request.getHeader("X-Username");
         securityLogService.logViewSignalement(id, null, username, getClientIp(), request.getHeader("User-Agent"));
-        return ResponseEntity.ok().body(Map.of("message", "À implémenter"));
+        try {
+            return ResponseEntity.ok().body(service.findProblemById(id));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        }
     }
 
     @Operation(
             summary = "Filtrer les signalements par statut",
-            description = "Récupère les signalements filtrés par un statut spécifique"
+            description = """
+                    Récupère les signalements dont le statut courant est celui demandé, paginés par curseur
+                    (du plus récent au plus ancien). Repasser 'nextCursor' dans 'cursor' pour la page suivante.
+                    """
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Liste filtrée récupérée avec succès",
-                    content = @Content(
-                            mediaType = "application/json",
-                            array = @ArraySchema(schema = @Schema(implementation = SignalementProblemDto.class))
-                    )
+                    description = "Page filtrée récupérée avec succès",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SignalementPageDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Statut ou curseur invalide"
             )
     })
     @GetMapping("/status/{status}")
     public ResponseEntity<?> findByStatus(
             @Parameter(description = "Statut à filtrer (nouveau, en_cours, terminé, annulé)", required = true)
-            @PathVariable String status) {
-        return ResponseEntity.ok().body(Map.of("message", "À implémenter"));
+            @PathVariable String status,
+            @Parameter(description = "Curseur renvoyé par la page précédente (nextCursor)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de signalements par page")
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(service.findProblemsByStatusPage(status, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
     }
 
     @Operation(
@@ -371,7 +739,11 @@ public class SignalementApi {
 
     @Operation(
             summary = "Récupérer les photos d'un signalement",
-            description = "Récupère toutes les photos associées à un signalement spécifique, triées par ordre"
+            description = """
+                    Récupère les métadonnées des photos associées à un signalement, triées par ordre.
+                    Chaque photo porte l'URL de son contenu (GET /{id}/photos/{photoId}).
+                    Avec 'size', les URLs pointent vers les miniatures de cette taille (côté le plus long en pixels).
+                    """
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -390,10 +762,199 @@ public class SignalementApi {
     @GetMapping("/{id}/photos")
     public ResponseEntity<?> getPhotosBySignalementId(
             @Parameter(description = "ID du signalement", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "Taille de miniature souhaitée en pixels (ex: 64, 256, 512)")
+            @RequestParam(required = false) Integer size) {
         try {
-            List<SignalementPhotoDto> photos = service.getPhotosBySignalementId(id);
-            return ResponseEntity.ok().body(photos);
+            List<SignalementPhotoDto> photos = service.getPhotosBySignalementId(id, size);
+            // La liste peut évoluer (nouvelles photos): cache court, revalidé par ETag
+            String encoding = ContentNegotiationConfig.negotiatedEncoding(request.getHeader(HttpHeaders.ACCEPT));
+            String etag = "\"photos-" + id + "-" + (size != null ? size + "-" : "") + photos.stream()
+                    .map(photo -> photo.getId().toString())
+                    .reduce((a, b) -> a + "." + b)
+                    .orElse("0") + "-" + encoding + "\"";
+            // Le 304 automatique de Spring reprend ces en-têtes, Vary compris
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS))
+                    .body(photos);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(
+            summary = "Récupérer le contenu d'une photo",
+            description = """
+                    Renvoie l'image d'une photo de signalement. Une photo n'étant jamais modifiée,
+                    la réponse est cacheable indéfiniment (Cache-Control immutable) et revalidable par ETag.
+                    Supporte l'en-tête Range (une seule plage) pour les téléchargements partiels.
+                    Avec 'size', renvoie une miniature JPEG (la plus petite taille générée couvrant la demande).
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Contenu de la photo",
+                    content = @Content(mediaType = "image/*")
+            ),
+            @ApiResponse(
+                    responseCode = "206",
+                    description = "Plage demandée de la photo (Range)"
+            ),
+            @ApiResponse(
+                    responseCode = "302",
+                    description = "Photo hébergée à une URL externe"
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Photo non modifiée (If-None-Match)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Photo non trouvée"
+            ),
+            @ApiResponse(
+                    responseCode = "416",
+                    description = "Plage demandée invalide"
+            )
+    })
+    @GetMapping("/{id}/photos/{photoId}")
+    public ResponseEntity<?> getPhotoContent(
+            @Parameter(description = "ID du signalement", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "ID de la photo", required = true)
+            @PathVariable Long photoId,
+            @Parameter(description = "Taille de miniature souhaitée en pixels (ex: 64, 256, 512)")
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        Optional<SignalementPhotoRef> ref = photoService.findRef(id, photoId);
+        if (ref.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Photo non trouvée"));
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        String etag = photoService.etag(ref.get(), size);
+        // Vérifié avant de charger le contenu: un 304 ne lit pas les octets de la photo
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        try {
+            PhotoService.PhotoContent content = photoService.loadContent(photoId, size);
+            if (content.redirectUrl() != null) {
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(content.redirectUrl()))
+                        .build();
+            }
+
+            long length = content.contentLength();
+            long start = 0;
+            long end = length - 1;
+            HttpStatus status = HttpStatus.OK;
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            if (rangeHeader != null) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(rangeHeader);
+                    if (ranges.size() == 1) {
+                        start = ranges.get(0).getRangeStart(length);
+                        end = ranges.get(0).getRangeEnd(length);
+                    }
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                            .build();
+                }
+                // Plusieurs plages: on renvoie le contenu complet, ce que la RFC 9110 autorise
+                if (ranges.size() == 1) {
+                    status = HttpStatus.PARTIAL_CONTENT;
+                }
+            }
+
+            long rangeStart = start;
+            long count = end - start + 1;
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                    .contentType(MediaType.parseMediaType(content.contentType()))
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentLength(count);
+            // Original servi faute de miniature prête: ni ETag ni cache, la miniature sera servie ensuite
+            if (content.provisional()) {
+                response.cacheControl(CacheControl.noStore());
+            } else {
+                response.eTag(etag).cacheControl(cacheControl);
+            }
+            if (status == HttpStatus.PARTIAL_CONTENT) {
+                response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            // Photo du stockage local: Tomcat envoie la plage du fichier lui-même par sendfile (copie dans le noyau),
+            // la réponse n'a pas de corps côté application
+            Path file = photoService.localFile(content);
+            if (file != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return response.build();
+            }
+            StreamingResponseBody body = out -> photoService.writeContent(content, rangeStart, count, out);
+            return response.body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Contenu de photo illisible: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(
+            summary = "Ajouter une photo à un signalement",
+            description = """
+                    Envoie une image (multipart, champ 'file') qui est ajoutée en dernière position.
+                    Les miniatures sont générées en arrière-plan.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Photo ajoutée avec succès",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SignalementPhotoDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Fichier vide ou qui n'est pas une image"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Signalement non trouvé"
+            )
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/{id}/photos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadPhoto(
+            @Parameter(description = "ID du signalement", required = true)
+            @PathVariable Long id,
+            @RequestParam("file") MultipartFile file) {
+        try {
+            SignalementPhoto photo = photoService.addPhoto(id, file.getBytes(), file.getContentType());
+            SignalementPhotoDto dto = SignalementPhotoDto.builder()
+                    .id(photo.getId())
+                    .signalementId(id)
+                    .url(PhotoService.photoUrl(id, photo.getId()))
+                    .photoOrder(photo.getPhotoOrder())
+                    .createdAt(photo.getCreatedAt())
+                    .build();
+            return ResponseEntity.status(HttpStatus.CREATED).body(dto);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
@@ -0,0 +1,29 @@
+package itu.cloud.roadworks.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache en mémoire des données de référence (types de problème, statuts, rôles, entreprises, taux d'avancement),
+ * lues à chaque import, changement de statut ou connexion et presque jamais modifiées.
+ * Les lectures sont mises en cache sur les repositories (@Cacheable); les écritures qui passent par
+ * le repository vident le cache concerné (@CacheEvict). Types, statuts et rôles ne sont modifiés que par
+ * les scripts SQL: redémarrer l'application après une modification directe en base.
+ * Les entités en cache sont détachées et partagées: ne pas les modifier sans les enregistrer.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String TYPE_PROBLEMS = "typeProblems";
+    public static final String TYPE_PROBLEM_LIST = "typeProblemList";
+    public static final String STATUS_SIGNALEMENTS = "statusSignalements";
+    public static final String STATUS_SIGNALEMENT_LIST = "statusSignalementList";
+    public static final String ROLES = "roles";
+    public static final String ROLE_LIST = "roleList";
+    public static final String COMPANIES = "companies";
+    public static final String COMPANIES_BY_NAME = "companiesByName";
+    // Identifiants des entreprises retrouvées ou créées par la synchronisation Firebase (SignalementService)
+    public static final String COMPANY_IDS_BY_NAME = "companyIdsByName";
+    public static final String ADVANCEMENT_RATE_LIST = "advancementRateList";
+}
@@ -0,0 +1,88 @@
+package itu.cloud.roadworks.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodages binaires des réponses JSON, choisis par l'en-tête Accept:
+ * application/cbor ou application/x-jackson-smile (clés répétées non réécrites, nombres en binaire).
+ * Les convertisseurs sont placés après JSON: un client qui accepte tout reçoit toujours du JSON.
+ * Une même URL ayant plusieurs représentations, les réponses portent Vary: Accept (voir {@link VaryAcceptAdvice})
+ * et les ETag sont suffixés par l'encodage ({@link #negotiatedEncoding}).
+ */
+@Configuration
+public class ContentNegotiationConfig {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    // Dans l'ordre des convertisseurs: à qualité égale, le premier encodage accepté l'emporte
+    private static final Map<MediaType, String> ENCODINGS = new LinkedHashMap<>();
+
+    static {
+        ENCODINGS.put(MediaType.APPLICATION_JSON, "json");
+        ENCODINGS.put(MediaType.APPLICATION_CBOR, "cbor");
+        ENCODINGS.put(APPLICATION_SMILE, "smile");
+    }
+
+    /**
+     * Encodage ("json", "cbor" ou "smile") choisi pour un en-tête Accept, à ajouter à l'ETag d'une réponse:
+     * deux représentations d'une même version ne doivent pas partager d'ETag.
+     */
+    public static String negotiatedEncoding(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "json";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "json";
+        }
+        // Tri stable: l'ordre du client départage les types de même qualité
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (Map.Entry<MediaType, String> encoding : ENCODINGS.entrySet()) {
+                if (type.includes(encoding.getKey())) {
+                    return encoding.getValue();
+                }
+            }
+        }
+        return "json";
+    }
+
+    @Bean
+    public WebMvcConfigurer binaryContentNegotiation(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                // Remplace les convertisseurs par défaut de Spring par des versions configurées comme le JSON
+                // (dates ISO-8601, modules Jackson de l'application)
+                converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                        || converter instanceof MappingJackson2SmileHttpMessageConverter);
+                converters.add(new MappingJackson2CborHttpMessageConverter(
+                        builders.getObject().factory(new CBORFactory()).build()));
+                converters.add(new MappingJackson2SmileHttpMessageConverter(
+                        builders.getObject().factory(new SmileFactory()).build()));
+            }
+        };
+    }
+}
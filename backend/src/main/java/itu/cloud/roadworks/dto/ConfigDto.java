@@ -0,0 +1,21 @@
+package itu.cloud.roadworks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Configuration système (une valeur absente n'est pas modifiée)")
+public class ConfigDto {
+
+    @Schema(description = "Tentatives de connexion échouées avant le blocage du compte", example = "5")
+    private Integer maxAttempts;
+
+    @Schema(description = "Durée des nouvelles sessions, en minutes", example = "60")
+    private Integer sessionDuration;
+}
@@ -0,0 +1,25 @@
+package itu.cloud.roadworks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Signalements modifiés ou supprimés depuis une version donnée")
+public class SignalementChangesDto {
+
+    @Schema(description = "Nouvelle version à repasser au paramètre 'since' lors du prochain appel", example = "1542")
+    private Long version;
+
+    @Schema(description = "Signalements créés ou modifiés, par version croissante")
+    private List<SignalementProblemDto> upserted;
+
+    @Schema(description = "Identifiants des signalements supprimés")
+    private List<Long> deleted;
+
+    @Schema(description = "Indique s'il reste des changements au-delà de 'version' (rappeler immédiatement)", example = "false")
+    private Boolean hasMore;
+}
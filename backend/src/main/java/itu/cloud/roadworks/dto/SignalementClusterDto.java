@@ -0,0 +1,31 @@
+package itu.cloud.roadworks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+@Builder
+@Schema(description = "Groupe de signalements actifs agrégés sur une cellule de la grille de carte")
+public class SignalementClusterDto {
+
+    @Schema(description = "Nombre de signalements du groupe", example = "12")
+    long count;
+
+    @Schema(description = "Latitude du barycentre du groupe", example = "-18.8792")
+    double latitude;
+
+    @Schema(description = "Longitude du barycentre du groupe", example = "47.5079")
+    double longitude;
+
+    @Schema(description = "Identifiant du signalement lorsque le groupe n'en contient qu'un", example = "1")
+    Long signalementId;
+
+    @Schema(description = "Répartition par type de problème", example = "{\"Nid de poule\": 8, \"Inondation\": 4}")
+    Map<String, Long> byType;
+
+    @Schema(description = "Répartition par statut actuel", example = "{\"nouveau\": 9, \"en_cours\": 3}")
+    Map<String, Long> byStatus;
+}
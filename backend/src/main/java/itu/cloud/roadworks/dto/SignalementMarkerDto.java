@@ -0,0 +1,29 @@
+package itu.cloud.roadworks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@Schema(description = "Marqueur de carte d'un signalement actif (réponse des requêtes par zone)")
+public class SignalementMarkerDto {
+
+    @Schema(description = "Identifiant unique du signalement", example = "1")
+    Long id;
+
+    @Schema(description = "Latitude", example = "-18.8792")
+    double latitude;
+
+    @Schema(description = "Longitude", example = "47.5079")
+    double longitude;
+
+    @Schema(description = "Type de problème signalé", example = "Nid de poule")
+    String typeProblem;
+
+    @Schema(description = "Icône/illustration du type de problème", example = "⚠️")
+    String illustrationProblem;
+
+    @Schema(description = "Statut actuel", example = "nouveau")
+    String etat;
+}
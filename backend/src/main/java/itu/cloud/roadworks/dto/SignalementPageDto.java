@@ -0,0 +1,26 @@
+package itu.cloud.roadworks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Page de signalements paginée par curseur (du plus récent au plus ancien)")
+public class SignalementPageDto {
+
+    @Schema(description = "Signalements de la page")
+    private List<SignalementProblemDto> items;
+
+    @Schema(description = "Taille de page appliquée", example = "50")
+    private Integer size;
+
+    @Schema(description = "Indique s'il reste des signalements après cette page", example = "true")
+    private Boolean hasMore;
+
+    @Schema(description = "Curseur à passer au paramètre 'cursor' pour obtenir la page suivante (null si dernière page)",
+            example = "MjAyNC0wMS0xNVQxMDozMDowMFpfNDI")
+    private String nextCursor;
+}
@@ -14,7 +14,7 @@ import java.time.Instant;
 public class SignalementPhotoDto {
     private Long id;
     private Long signalementId;
-    private String photoData;
+    private String url;
     private Integer photoOrder;
     private Instant createdAt;
 }
@@ -0,0 +1,16 @@
+package itu.cloud.roadworks.dto;
+
+import java.time.Instant;
+
+/**
+ * Métadonnées d'une photo sans son contenu (la colonne photo_data n'est pas lue).
+ */
+public interface SignalementPhotoRef {
+    Long getId();
+
+    Long getSignalementId();
+
+    Integer getPhotoOrder();
+
+    Instant getCreatedAt();
+}
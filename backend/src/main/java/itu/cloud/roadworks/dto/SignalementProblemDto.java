@@ -31,8 +31,11 @@ public class SignalementProblemDto {
     @Schema(description = "Informations sur les travaux assignés")
     private WorkInfo work;
 
-    @Schema(description = "Photos associées au signalement (Base64 ou URLs)")
-    private List<String> photos;
+    @Schema(description = "Nombre de photos associées au signalement", example = "2")
+    private Integer photoCount;
+
+    @Schema(description = "Références des photos (le contenu est servi par /api/signalements/{id}/photos/{photoId})")
+    private List<PhotoRef> photos;
 
     @Data
     @Builder
@@ -90,4 +93,19 @@ public class SignalementProblemDto {
         @Schema(description = "Entreprise responsable")
         private CompanyDto company;
     }
+
+    @Data
+    @Builder
+    @Schema(description = "Référence vers une photo du signalement")
+    public static class PhotoRef {
+
+        @Schema(description = "Identifiant de la photo", example = "12")
+        private Long id;
+
+        @Schema(description = "URL du contenu de la photo", example = "/api/signalements/1/photos/12")
+        private String url;
+
+        @Schema(description = "URL de la miniature de prévisualisation", example = "/api/signalements/1/photos/12?size=256")
+        private String thumbnailUrl;
+    }
 }
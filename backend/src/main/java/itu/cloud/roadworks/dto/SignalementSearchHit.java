@@ -0,0 +1,10 @@
+package itu.cloud.roadworks.dto;
+
+/**
+ * Résultat de la recherche plein texte: identifiant du signalement et score de pertinence (ts_rank).
+ */
+public interface SignalementSearchHit {
+    Long getId();
+
+    Float getRank();
+}
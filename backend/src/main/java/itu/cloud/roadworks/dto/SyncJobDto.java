@@ -0,0 +1,26 @@
+package itu.cloud.roadworks.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * État d'une synchronisation avec Firebase lancée en arrière-plan (GET /api/signalements/sync/jobs/{id}).
+ */
+@Data
+@Builder
+public class SyncJobDto {
+    private String id;
+    private String kind; // import, export, status
+    private boolean full; // import: relecture de toute la collection
+    private String state; // PENDING, RUNNING, SUCCEEDED, FAILED
+    private String trigger; // api, schedule
+    private Long total; // null si inconnu avant la fin (import)
+    private long processed;
+    private Integer result; // signalements importés, exportés ou synchronisés
+    private String error;
+    private Instant requestedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
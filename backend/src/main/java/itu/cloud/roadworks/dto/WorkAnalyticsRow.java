@@ -0,0 +1,24 @@
+package itu.cloud.roadworks.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Un travail (ligne de signalement_work) avec son entreprise et l'état de son signalement
+ * lu dans le modèle de lecture: base des statistiques par entreprise.
+ */
+public interface WorkAnalyticsRow {
+    Long getCompanyId();
+
+    String getCompanyName();
+
+    LocalDate getStartDate();
+
+    LocalDate getRealEndDate();
+
+    Instant getDateProblem();
+
+    String getEtat();
+
+    Instant getStatusDate();
+}
@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "company")
+@Table(name = "company", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_company_name", columnNames = "name")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
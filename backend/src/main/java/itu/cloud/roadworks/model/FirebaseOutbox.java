@@ -0,0 +1,41 @@
+package itu.cloud.roadworks.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Signalement modifié localement, en attente d'envoi vers Firestore.
+ * Une seule ligne par signalement: chaque nouvelle modification incrémente revision et rend la ligne
+ * immédiatement disponible, l'envoi porte toujours sur l'état courant du signalement.
+ */
+@Entity
+@Table(name = "firebase_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FirebaseOutbox {
+    @Id
+    @Column(name = "signalement_id")
+    private Long signalementId;
+
+    @Column(nullable = false)
+    private Long revision;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -10,14 +10,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "signalement")
+@Table(name = "signalement", indexes = {
+        @Index(name = "idx_signalement_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_signalement_current_status", columnList = "current_status_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Signalement {
+    // Séquence du BIGSERIAL, identifiants réservés par blocs: les insertions sont regroupées en lots JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "signalement_seq")
+    @SequenceGenerator(name = "signalement_seq", sequenceName = "signalement_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,6 +38,13 @@ public class Signalement {
     @Column(nullable = false, length = 255)
     private String location;
 
+    // Coordonnées numériques extraites de location ("lat,lng"), maintenues à chaque écriture
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
     @Column(columnDefinition = "TEXT")
     private String picture;
 
@@ -46,6 +58,18 @@ public class Signalement {
     @Column(name = "firebase_id", unique = true)
     private String firebaseId;
 
+    // SHA-256 du dernier contenu envoyé vers Firestore
+    @Column(name = "firebase_push_hash", length = 64)
+    private String firebasePushHash;
+
+    // Copie du dernier SignalementStatus, mise à jour dans la même transaction que l'historique
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "current_status_id")
+    private StatusSignalement currentStatus;
+
+    @Column(name = "current_status_at")
+    private Instant currentStatusAt;
+
     @OneToMany(mappedBy = "signalement", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("updatedAt DESC")
     @ToString.Exclude
@@ -66,4 +90,33 @@ public class Signalement {
     @EqualsAndHashCode.Exclude
     @Builder.Default
     private List<SignalementPhoto> photos = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    protected void syncCoordinates() {
+        double[] coordinates = parseLocation(location);
+        if (coordinates != null) {
+            latitude = coordinates[0];
+            longitude = coordinates[1];
+        }
+    }
+
+    /**
+     * Parse une location au format "lat,lng".
+     * @return {lat, lng}, ou null si le format n'est pas reconnu
+     */
+    public static double[] parseLocation(String location) {
+        if (location == null) {
+            return null;
+        }
+        String[] parts = location.split(",");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new double[]{Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
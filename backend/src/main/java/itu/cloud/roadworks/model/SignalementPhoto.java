@@ -5,14 +5,17 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "signalement_photo")
+@Table(name = "signalement_photo", indexes = {
+        @Index(name = "idx_signalement_photo_content_hash", columnList = "content_hash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class SignalementPhoto {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "signalement_photo_seq")
+    @SequenceGenerator(name = "signalement_photo_seq", sequenceName = "signalement_photo_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -21,8 +24,17 @@ public class SignalementPhoto {
     @EqualsAndHashCode.Exclude
     private Signalement signalement;
 
-    @Column(name = "photo_data", columnDefinition = "TEXT", nullable = false)
-    private String photoData; // Base64 ou URL de la photo
+    @Column(name = "photo_data", columnDefinition = "TEXT")
+    private String photoData; // URL externe, ou Base64 hérité pas encore migré vers le stockage
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 du contenu dans le PhotoStorage
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "content_length")
+    private Long contentLength;
 
     @Column(name = "photo_order")
     private Integer photoOrder; // Ordre de la photo (1, 2, 3...)
@@ -0,0 +1,96 @@
+package itu.cloud.roadworks.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Modèle de lecture: une ligne plate par signalement avec son type, son statut courant,
+ * son dernier travail et l'entreprise assignée. Écrit uniquement par SignalementReadModelProjector.
+ */
+@Entity
+@Immutable
+@Table(name = "signalement_read_model", indexes = {
+        @Index(name = "idx_read_model_date", columnList = "date_problem, signalement_id"),
+        @Index(name = "idx_read_model_status", columnList = "status_id, date_problem, signalement_id"),
+        @Index(name = "idx_read_model_company", columnList = "company_id"),
+        @Index(name = "idx_read_model_change_version", columnList = "change_version")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignalementReadModel {
+    @Id
+    @Column(name = "signalement_id")
+    private Long signalementId;
+
+    @Column(name = "type_problem_id", nullable = false)
+    private Long typeProblemId;
+
+    @Column(name = "type_problem", length = 100)
+    private String typeProblem;
+
+    @Column(name = "illustration_problem", columnDefinition = "TEXT")
+    private String illustrationProblem;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(length = 255)
+    private String location;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    @Column(name = "date_problem", nullable = false)
+    private Instant dateProblem;
+
+    @Column(name = "surface_m2", precision = 12, scale = 2)
+    private BigDecimal surfaceM2;
+
+    @Column(name = "firebase_id")
+    private String firebaseId;
+
+    @Column(name = "status_id")
+    private Long statusId;
+
+    @Column(length = 50)
+    private String etat;
+
+    @Column(name = "status_date")
+    private Instant statusDate;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal budget;
+
+    @Column(name = "work_start_date")
+    private LocalDate workStartDate;
+
+    @Column(name = "work_end_date_estimation")
+    private LocalDate workEndDateEstimation;
+
+    @Column(name = "work_real_end_date")
+    private LocalDate workRealEndDate;
+
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "company_name", length = 150)
+    private String companyName;
+
+    @Column(name = "photo_count", nullable = false)
+    private Integer photoCount;
+
+    // Tirée de signalement_change_seq à chaque modification de la ligne
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private Instant refreshedAt;
+}
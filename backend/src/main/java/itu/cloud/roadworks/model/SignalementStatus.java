@@ -12,7 +12,8 @@ import java.time.Instant;
 @Builder
 public class SignalementStatus {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "signalement_status_seq")
+    @SequenceGenerator(name = "signalement_status_seq", sequenceName = "signalement_status_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
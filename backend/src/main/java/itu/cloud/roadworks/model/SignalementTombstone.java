@@ -0,0 +1,31 @@
+package itu.cloud.roadworks.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * Trace d'un signalement supprimé, exposée par le flux de changements avec sa version de suppression.
+ */
+@Entity
+@Immutable
+@Table(name = "signalement_tombstone", indexes = {
+        @Index(name = "idx_tombstone_change_version", columnList = "change_version")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SignalementTombstone {
+    @Id
+    @Column(name = "signalement_id")
+    private Long signalementId;
+
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,31 @@
+package itu.cloud.roadworks.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Position atteinte par une synchronisation incrémentale: le dernier document lu,
+ * dans l'ordre (createdAt, id du document) de la requête Firestore.
+ */
+@Entity
+@Table(name = "sync_watermark")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncWatermark {
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "last_created_at")
+    private Instant lastCreatedAt;
+
+    @Column(name = "last_document_id", length = 255)
+    private String lastDocumentId;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
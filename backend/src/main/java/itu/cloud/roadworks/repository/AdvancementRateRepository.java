@@ -1,10 +1,22 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.config.CacheConfig;
 import itu.cloud.roadworks.model.AdvancementRate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface AdvancementRateRepository extends JpaRepository<AdvancementRate, Long> {
     Optional<AdvancementRate> findByStatusKeyIgnoreCase(String statusKey);
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ADVANCEMENT_RATE_LIST, key = "'all'")
+    List<AdvancementRate> findAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ADVANCEMENT_RATE_LIST, allEntries = true, beforeInvocation = true)
+    <S extends AdvancementRate> S save(S rate);
 }
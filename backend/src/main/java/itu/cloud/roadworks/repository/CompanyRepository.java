@@ -1,9 +1,58 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.config.CacheConfig;
 import itu.cloud.roadworks.model.Company;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.Optional;
 
 public interface CompanyRepository extends JpaRepository<Company, Long> {
+    // Nom inconnu non mis en cache: l'entreprise peut être créée ensuite
+    @Cacheable(cacheNames = CacheConfig.COMPANIES_BY_NAME, key = "#p0", unless = "#result == null")
     Optional<Company> findByName(String name);
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.COMPANIES, key = "#p0", unless = "#result == null")
+    Optional<Company> findById(Long id);
+
+    // Lecture hors cache pour une modification: l'instance en cache est partagée entre les requêtes
+    @Query("SELECT c FROM Company c WHERE c.id = :id")
+    Optional<Company> findForUpdate(@Param("id") Long id);
+
+    // Contrôles d'unicité avant écriture, lus en base (hors cache)
+    boolean existsByName(String name);
+
+    boolean existsByNameAndIdNot(String name, Long id);
+
+    boolean existsBySiret(String siret);
+
+    // Cache vidé avant l'écriture: une entité en cache modifiée puis non enregistrée n'y reste pas
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.COMPANIES, CacheConfig.COMPANIES_BY_NAME, CacheConfig.COMPANY_IDS_BY_NAME},
+            allEntries = true, beforeInvocation = true)
+    <S extends Company> S save(S company);
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.COMPANIES, CacheConfig.COMPANIES_BY_NAME, CacheConfig.COMPANY_IDS_BY_NAME},
+            allEntries = true, beforeInvocation = true)
+    void deleteById(Long id);
+
+    /**
+     * Retrouve ou crée l'entreprise d'un nom en une instruction, sans course entre imports parallèles
+     * (contrainte uk_company_name). Le DO UPDATE ne change rien mais retourne l'id de la ligne existante,
+     * que DO NOTHING ne retourne pas. Une entreprise créée reçoit un SIRET provisoire unique dérivé du nom.
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO company (name, siret, address, created_at)
+            VALUES (:name, 'UNKNOWN-' || LEFT(MD5(:name), 22), '', NOW())
+            ON CONFLICT (name) DO UPDATE SET name = EXCLUDED.name
+            RETURNING id
+            """, nativeQuery = true)
+    Long upsertIdByName(@Param("name") String name);
 }
@@ -3,5 +3,9 @@ package itu.cloud.roadworks.repository;
 import itu.cloud.roadworks.model.Config;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface ConfigRepository extends JpaRepository<Config, Long> {
+    // La table ne contient qu'une ligne
+    Optional<Config> findFirstByOrderByIdAsc();
 }
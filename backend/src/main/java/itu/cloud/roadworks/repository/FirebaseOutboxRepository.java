@@ -0,0 +1,64 @@
+package itu.cloud.roadworks.repository;
+
+import itu.cloud.roadworks.model.FirebaseOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FirebaseOutboxRepository extends JpaRepository<FirebaseOutbox, Long> {
+
+    // Regroupe les modifications d'un signalement déjà en attente: nouvelle révision, tentatives remises à zéro
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = """
+            INSERT INTO firebase_outbox (signalement_id, revision, attempts, next_attempt_at, created_at, updated_at)
+            VALUES (:id, 1, 0, NOW(), NOW(), NOW())
+            ON CONFLICT (signalement_id) DO UPDATE SET
+                revision = firebase_outbox.revision + 1,
+                attempts = 0,
+                next_attempt_at = NOW(),
+                last_error = NULL,
+                updated_at = NOW()
+            """, nativeQuery = true)
+    int enqueue(@Param("id") Long signalementId);
+
+    // Signalements dont une modification locale n'a pas encore été envoyée vers Firestore
+    @Query("SELECT o.signalementId FROM FirebaseOutbox o WHERE o.signalementId IN :ids")
+    List<Long> findPendingIds(@Param("ids") Collection<Long> signalementIds);
+
+    // Lignes dues, verrouillées jusqu'à la fin de la transaction; celles déjà prises par une autre instance sont sautées
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = """
+            SELECT * FROM firebase_outbox
+            WHERE next_attempt_at <= NOW()
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<FirebaseOutbox> lockDue(@Param("limit") int limit);
+
+    // Sans effet si le signalement a été modifié pendant l'envoi: la nouvelle révision reste à envoyer
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FirebaseOutbox o WHERE o.signalementId = :id AND o.revision = :revision")
+    int deleteSent(@Param("id") Long signalementId, @Param("revision") Long revision);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE FirebaseOutbox o SET o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.lastError = :error, o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.signalementId = :id AND o.revision = :revision")
+    int markFailed(@Param("id") Long signalementId,
+                   @Param("revision") Long revision,
+                   @Param("nextAttemptAt") Instant nextAttemptAt,
+                   @Param("error") String error);
+}
@@ -1,12 +1,21 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.config.CacheConfig;
 import itu.cloud.roadworks.model.Role;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    // Libellé inconnu non mis en cache
+    @Cacheable(cacheNames = CacheConfig.ROLES, key = "#p0", unless = "#result == null")
     Optional<Role> findByLibelle(String libelle);
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ROLE_LIST, key = "'all'")
+    List<Role> findAll();
 }
@@ -3,9 +3,13 @@ package itu.cloud.roadworks.repository;
 import itu.cloud.roadworks.model.Account;
 import itu.cloud.roadworks.model.Session;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,5 +18,17 @@ public interface SessionRepository extends JpaRepository<Session, UUID> {
     Optional<Session> findByToken(String token);
     Optional<Session> findByTokenAndExpiresAtAfter(String token, Instant now);
     void deleteByAccount(Account account);
+
+    // Compte et rôle chargés avec la session: l'entrée du cache de tokens s'utilise hors transaction
+    @Query("SELECT s FROM Session s JOIN FETCH s.account a JOIN FETCH a.role " +
+            "WHERE s.token = :token AND s.expiresAt > :now")
+    Optional<Session> findValidWithAccount(@Param("token") String token, @Param("now") Instant now);
+
+    @Query("SELECT s.token FROM Session s WHERE s.account.id = :accountId")
+    List<String> findTokensByAccountId(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query("DELETE FROM Session s WHERE s.account.id = :accountId")
+    int deleteAllByAccountId(@Param("accountId") Long accountId);
     void deleteByExpiresAtBefore(Instant now);
 }
@@ -1,15 +1,46 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.dto.SignalementPhotoRef;
 import itu.cloud.roadworks.model.SignalementPhoto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SignalementPhotoRepository extends JpaRepository<SignalementPhoto, Long> {
 
     List<SignalementPhoto> findBySignalementIdOrderByPhotoOrderAsc(Long signalementId);
 
+    @Query("SELECT p FROM SignalementPhoto p WHERE p.signalement.id IN :signalementIds ORDER BY p.photoOrder ASC")
+    List<SignalementPhoto> findBySignalementIds(@Param("signalementIds") Collection<Long> signalementIds);
+
     void deleteBySignalementId(Long signalementId);
+
+    @Query("SELECT p.id AS id, p.signalement.id AS signalementId, p.photoOrder AS photoOrder, p.createdAt AS createdAt " +
+            "FROM SignalementPhoto p WHERE p.signalement.id = :signalementId ORDER BY p.photoOrder ASC")
+    List<SignalementPhotoRef> findRefsBySignalementId(@Param("signalementId") Long signalementId);
+
+    @Query("SELECT p.id AS id, p.signalement.id AS signalementId, p.photoOrder AS photoOrder, p.createdAt AS createdAt " +
+            "FROM SignalementPhoto p WHERE p.signalement.id IN :signalementIds ORDER BY p.photoOrder ASC")
+    List<SignalementPhotoRef> findRefsBySignalementIds(@Param("signalementIds") Collection<Long> signalementIds);
+
+    @Query("SELECT p.id AS id, p.signalement.id AS signalementId, p.photoOrder AS photoOrder, p.createdAt AS createdAt " +
+            "FROM SignalementPhoto p ORDER BY p.photoOrder ASC")
+    List<SignalementPhotoRef> findAllRefs();
+
+    @Query("SELECT p.id AS id, p.signalement.id AS signalementId, p.photoOrder AS photoOrder, p.createdAt AS createdAt " +
+            "FROM SignalementPhoto p WHERE p.id = :photoId AND p.signalement.id = :signalementId")
+    Optional<SignalementPhotoRef> findRef(@Param("signalementId") Long signalementId, @Param("photoId") Long photoId);
+
+    // Photos encore en Base64 dans photo_data (hors URLs externes), parcourues par id croissant
+    @Query("SELECT p FROM SignalementPhoto p WHERE p.contentHash IS NULL AND p.photoData IS NOT NULL " +
+            "AND p.photoData NOT LIKE 'http://%' AND p.photoData NOT LIKE 'https://%' " +
+            "AND p.id > :afterId ORDER BY p.id ASC")
+    List<SignalementPhoto> findLegacyBatch(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,226 @@
+package itu.cloud.roadworks.repository;
+
+import itu.cloud.roadworks.dto.WorkAnalyticsRow;
+import itu.cloud.roadworks.model.SignalementReadModel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface SignalementReadModelRepository extends JpaRepository<SignalementReadModel, Long> {
+
+    // Calcul d'une ligne du modèle de lecture: statut courant, dernier travail (et son entreprise), nombre de photos.
+    // Chaque ligne écrite reçoit une nouvelle version de changement
+    String UPSERT = """
+            INSERT INTO signalement_read_model (signalement_id, type_problem_id, type_problem, illustration_problem,
+                description, location, latitude, longitude, date_problem, surface_m2, firebase_id,
+                status_id, etat, status_date, budget, work_start_date, work_end_date_estimation, work_real_end_date,
+                company_id, company_name, photo_count, change_version, refreshed_at)
+            SELECT s.id, tp.id, tp.libelle, tp.icone,
+                   s.descriptions, s.location, s.latitude, s.longitude, s.created_at, s.surface, s.firebase_id,
+                   s.current_status_id, cs.libelle, s.current_status_at,
+                   lw.price, lw.start_date, lw.end_date_estimation, lw.real_end_date,
+                   c.id, c.name,
+                   (SELECT COUNT(*) FROM signalement_photo p WHERE p.id_signalement = s.id),
+                   nextval('signalement_change_seq'),
+                   NOW()
+            FROM signalement s
+            JOIN type_problem tp ON tp.id = s.id_type_problem
+            LEFT JOIN status_signalement cs ON cs.id = s.current_status_id
+            LEFT JOIN LATERAL (
+                SELECT sw.price, sw.start_date, sw.end_date_estimation, sw.real_end_date, sw.id_company
+                FROM signalement_work sw
+                WHERE sw.id_signalement = s.id
+                ORDER BY sw.start_date DESC NULLS LAST, sw.id DESC
+                LIMIT 1
+            ) lw ON true
+            LEFT JOIN company c ON c.id = lw.id_company
+            """;
+
+    // Une ligne identique n'est pas réécrite: sa version ne change pas et les clients du flux ne la retéléchargent pas
+    String ON_CONFLICT_UPDATE = """
+            ON CONFLICT (signalement_id) DO UPDATE SET
+                type_problem_id = EXCLUDED.type_problem_id,
+                type_problem = EXCLUDED.type_problem,
+                illustration_problem = EXCLUDED.illustration_problem,
+                description = EXCLUDED.description,
+                location = EXCLUDED.location,
+                latitude = EXCLUDED.latitude,
+                longitude = EXCLUDED.longitude,
+                date_problem = EXCLUDED.date_problem,
+                surface_m2 = EXCLUDED.surface_m2,
+                firebase_id = EXCLUDED.firebase_id,
+                status_id = EXCLUDED.status_id,
+                etat = EXCLUDED.etat,
+                status_date = EXCLUDED.status_date,
+                budget = EXCLUDED.budget,
+                work_start_date = EXCLUDED.work_start_date,
+                work_end_date_estimation = EXCLUDED.work_end_date_estimation,
+                work_real_end_date = EXCLUDED.work_real_end_date,
+                company_id = EXCLUDED.company_id,
+                company_name = EXCLUDED.company_name,
+                photo_count = EXCLUDED.photo_count,
+                change_version = EXCLUDED.change_version,
+                refreshed_at = EXCLUDED.refreshed_at
+            WHERE (signalement_read_model.type_problem_id, signalement_read_model.type_problem,
+                   signalement_read_model.illustration_problem, signalement_read_model.description,
+                   signalement_read_model.location, signalement_read_model.latitude, signalement_read_model.longitude,
+                   signalement_read_model.date_problem, signalement_read_model.surface_m2, signalement_read_model.firebase_id,
+                   signalement_read_model.status_id, signalement_read_model.etat, signalement_read_model.status_date,
+                   signalement_read_model.budget, signalement_read_model.work_start_date,
+                   signalement_read_model.work_end_date_estimation, signalement_read_model.work_real_end_date,
+                   signalement_read_model.company_id, signalement_read_model.company_name, signalement_read_model.photo_count)
+                IS DISTINCT FROM
+                  (EXCLUDED.type_problem_id, EXCLUDED.type_problem,
+                   EXCLUDED.illustration_problem, EXCLUDED.description,
+                   EXCLUDED.location, EXCLUDED.latitude, EXCLUDED.longitude,
+                   EXCLUDED.date_problem, EXCLUDED.surface_m2, EXCLUDED.firebase_id,
+                   EXCLUDED.status_id, EXCLUDED.etat, EXCLUDED.status_date,
+                   EXCLUDED.budget, EXCLUDED.work_start_date,
+                   EXCLUDED.work_end_date_estimation, EXCLUDED.work_real_end_date,
+                   EXCLUDED.company_id, EXCLUDED.company_name, EXCLUDED.photo_count)
+            """;
+
+    // Clé du verrou consultatif des versions de changement
+    long CHANGE_LOCK_KEY = 7_310_001L;
+
+    /**
+     * Sérialise les écritures versionnées jusqu'à la fin de la transaction: les versions sont validées
+     * dans l'ordre où elles sont tirées, et un client qui a lu la version N a vu toutes les précédentes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(" + CHANGE_LOCK_KEY + ")) l", nativeQuery = true)
+    Integer lockChangeVersions();
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = UPSERT + "WHERE s.id = :id\n" + ON_CONFLICT_UPDATE, nativeQuery = true)
+    int refresh(@Param("id") Long signalementId);
+
+    // Les signalements dont le dernier travail est confié à l'entreprise (changement de nom)
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = UPSERT + "WHERE lw.id_company = :companyId\n" + ON_CONFLICT_UPDATE, nativeQuery = true)
+    int refreshByCompany(@Param("companyId") Long companyId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = UPSERT + ON_CONFLICT_UPDATE, nativeQuery = true)
+    int rebuildAll();
+
+    @Query(value = """
+            SELECT * FROM signalement_read_model
+            ORDER BY date_problem DESC, signalement_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementReadModel> findFirstPage(@Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM signalement_read_model
+            WHERE (date_problem, signalement_id) < (:createdAt, :id)
+            ORDER BY date_problem DESC, signalement_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementReadModel> findPageAfter(@Param("createdAt") Instant createdAt,
+                                             @Param("id") Long id,
+                                             @Param("limit") int limit);
+
+    // Parcours de l'index (status_id, date_problem, signalement_id)
+    @Query(value = """
+            SELECT * FROM signalement_read_model
+            WHERE status_id = :statusId
+            ORDER BY date_problem DESC, signalement_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementReadModel> findByStatusFirstPage(@Param("statusId") Long statusId,
+                                                     @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM signalement_read_model
+            WHERE status_id = :statusId
+              AND (date_problem, signalement_id) < (:createdAt, :id)
+            ORDER BY date_problem DESC, signalement_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementReadModel> findByStatusPageAfter(@Param("statusId") Long statusId,
+                                                     @Param("createdAt") Instant createdAt,
+                                                     @Param("id") Long id,
+                                                     @Param("limit") int limit);
+
+    List<SignalementReadModel> findByLatitudeIsNotNullAndLongitudeIsNotNull();
+
+    // Signalements créés localement, pas encore envoyés vers Firestore
+    @Query("SELECT r FROM SignalementReadModel r WHERE r.firebaseId IS NULL OR r.firebaseId = '' ORDER BY r.signalementId")
+    List<SignalementReadModel> findWithoutFirebaseId();
+
+    @Query("SELECT r FROM SignalementReadModel r WHERE r.firebaseId IS NOT NULL AND r.firebaseId <> '' ORDER BY r.signalementId")
+    List<SignalementReadModel> findWithFirebaseId();
+
+    List<SignalementReadModel> findByFirebaseIdIn(Collection<String> firebaseIds);
+
+    @Query(value = """
+            SELECT * FROM signalement_read_model
+            WHERE change_version > :since
+            ORDER BY change_version
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementReadModel> findChangedSince(@Param("since") long since, @Param("limit") int limit);
+
+    @Query(value = "SELECT COALESCE(MAX(change_version), 0) FROM signalement_read_model", nativeQuery = true)
+    long findMaxChangeVersion();
+
+    // Export: curseur côté serveur (lignes lues par paquets de fetch-size), à consommer dans une transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM SignalementReadModel r " +
+            "WHERE r.signalementId > :afterId " +
+            "AND (:statusId IS NULL OR r.statusId = :statusId) " +
+            "AND (:typeProblem IS NULL OR r.typeProblem = :typeProblem) " +
+            "AND (:minLat IS NULL OR (r.latitude BETWEEN :minLat AND :maxLat " +
+            "     AND r.longitude BETWEEN :minLng AND :maxLng)) " +
+            "ORDER BY r.signalementId")
+    Stream<SignalementReadModel> streamForExport(@Param("afterId") long afterId,
+                                                 @Param("statusId") Long statusId,
+                                                 @Param("typeProblem") String typeProblem,
+                                                 @Param("minLat") Double minLat,
+                                                 @Param("minLng") Double minLng,
+                                                 @Param("maxLat") Double maxLat,
+                                                 @Param("maxLng") Double maxLng);
+
+    // Filtres optionnels des statistiques: un paramètre null ne filtre pas
+    @Query("SELECT r FROM SignalementReadModel r " +
+            "WHERE (:companyId IS NULL OR r.companyId = :companyId) " +
+            "AND (:typeProblem IS NULL OR LOWER(r.typeProblem) = :typeProblem) " +
+            "AND (:createdFrom IS NULL OR r.dateProblem >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR r.dateProblem < :createdTo)")
+    List<SignalementReadModel> findForAnalytics(@Param("companyId") Long companyId,
+                                                @Param("typeProblem") String typeProblem,
+                                                @Param("createdFrom") Instant createdFrom,
+                                                @Param("createdTo") Instant createdTo);
+
+    // Tous les travaux, pas seulement le dernier de chaque signalement: une entreprise dont le travail a été
+    // remplacé garde ses statistiques. Mêmes filtres, l'entreprise portant sur celle du travail
+    @Query("SELECT c.id AS companyId, c.name AS companyName, w.startDate AS startDate, w.realEndDate AS realEndDate, " +
+            "r.dateProblem AS dateProblem, r.etat AS etat, r.statusDate AS statusDate " +
+            "FROM SignalementWork w JOIN w.company c " +
+            "JOIN SignalementReadModel r ON r.signalementId = w.signalement.id " +
+            "WHERE (:companyId IS NULL OR c.id = :companyId) " +
+            "AND (:typeProblem IS NULL OR LOWER(r.typeProblem) = :typeProblem) " +
+            "AND (:createdFrom IS NULL OR r.dateProblem >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR r.dateProblem < :createdTo)")
+    List<WorkAnalyticsRow> findWorksForAnalytics(@Param("companyId") Long companyId,
+                                                 @Param("typeProblem") String typeProblem,
+                                                 @Param("createdFrom") Instant createdFrom,
+                                                 @Param("createdTo") Instant createdTo);
+}
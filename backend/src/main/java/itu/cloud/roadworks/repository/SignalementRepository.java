@@ -1,9 +1,76 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.dto.SignalementSearchHit;
 import itu.cloud.roadworks.model.Signalement;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface SignalementRepository extends JpaRepository<Signalement, Long> {
     Optional<Signalement> findByFirebaseId(String firebaseId);
+
+    // Détection des doublons à l'import Firebase: une requête par paquet d'identifiants (index idx_signalement_firebase_id)
+    @Query("SELECT s.firebaseId FROM Signalement s WHERE s.firebaseId IN :firebaseIds")
+    Set<String> findExistingFirebaseIds(@Param("firebaseIds") Collection<String> firebaseIds);
+
+    @Query("SELECT s.firebaseId FROM Signalement s WHERE s.firebaseId IS NOT NULL")
+    Set<String> findAllFirebaseIds();
+
+    @Query("SELECT s.id FROM Signalement s WHERE s.firebaseId IN :firebaseIds")
+    List<Long> findIdsByFirebaseIds(@Param("firebaseIds") Collection<String> firebaseIds);
+
+    // Verrou de ligne jusqu'à la fin de la transaction: attend les modifications locales en cours du signalement
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Signalement s WHERE s.id = :id")
+    Optional<Signalement> findByIdForUpdate(@Param("id") Long id);
+
+    // Recherche plein texte sur search_vector (index GIN), filtres optionnels sur le modèle de lecture.
+    // Les CAST typent les paramètres null pour Postgres
+    String SEARCH_SELECT = """
+            SELECT s.id AS "id", ts_rank(s.search_vector, q.query) AS "rank"
+            FROM signalement s
+            CROSS JOIN websearch_to_tsquery('french', :q) AS q(query)
+            JOIN signalement_read_model r ON r.signalement_id = s.id
+            WHERE s.search_vector @@ q.query
+              AND (CAST(:typeProblem AS text) IS NULL OR r.type_problem = CAST(:typeProblem AS text))
+              AND (CAST(:statusId AS bigint) IS NULL OR r.status_id = CAST(:statusId AS bigint))
+              AND (CAST(:minLat AS double precision) IS NULL
+                   OR (r.latitude BETWEEN CAST(:minLat AS double precision) AND CAST(:maxLat AS double precision)
+                       AND r.longitude BETWEEN CAST(:minLng AS double precision) AND CAST(:maxLng AS double precision)))
+            """;
+
+    @Query(value = SEARCH_SELECT + """
+            ORDER BY "rank" DESC, s.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementSearchHit> searchFirstPage(@Param("q") String query,
+                                               @Param("typeProblem") String typeProblem,
+                                               @Param("statusId") Long statusId,
+                                               @Param("minLat") Double minLat,
+                                               @Param("minLng") Double minLng,
+                                               @Param("maxLat") Double maxLat,
+                                               @Param("maxLng") Double maxLng,
+                                               @Param("limit") int limit);
+
+    @Query(value = SEARCH_SELECT + """
+              AND (ts_rank(s.search_vector, q.query), s.id) < (CAST(:rank AS real), :id)
+            ORDER BY "rank" DESC, s.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementSearchHit> searchAfter(@Param("q") String query,
+                                           @Param("typeProblem") String typeProblem,
+                                           @Param("statusId") Long statusId,
+                                           @Param("minLat") Double minLat,
+                                           @Param("minLng") Double minLng,
+                                           @Param("maxLat") Double maxLat,
+                                           @Param("maxLng") Double maxLng,
+                                           @Param("rank") float rank,
+                                           @Param("id") Long id,
+                                           @Param("limit") int limit);
 }
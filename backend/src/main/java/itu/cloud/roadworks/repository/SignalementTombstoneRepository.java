@@ -0,0 +1,37 @@
+package itu.cloud.roadworks.repository;
+
+import itu.cloud.roadworks.model.SignalementTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface SignalementTombstoneRepository extends JpaRepository<SignalementTombstone, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO signalement_tombstone (signalement_id, change_version, deleted_at)
+            VALUES (:id, nextval('signalement_change_seq'), NOW())
+            ON CONFLICT (signalement_id) DO UPDATE SET
+                change_version = EXCLUDED.change_version,
+                deleted_at = EXCLUDED.deleted_at
+            """, nativeQuery = true)
+    int record(@Param("id") Long signalementId);
+
+    @Query(value = """
+            SELECT * FROM signalement_tombstone
+            WHERE change_version > :since
+            ORDER BY change_version
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SignalementTombstone> findChangedSince(@Param("since") long since, @Param("limit") int limit);
+
+    @Query(value = "SELECT COALESCE(MAX(change_version), 0) FROM signalement_tombstone", nativeQuery = true)
+    long findMaxChangeVersion();
+}
@@ -1,9 +1,18 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.config.CacheConfig;
 import itu.cloud.roadworks.model.StatusSignalement;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
 import java.util.Optional;
 
 public interface StatusSignalementRepository extends JpaRepository<StatusSignalement, Long> {
+    // Libellé inconnu non mis en cache
+    @Cacheable(cacheNames = CacheConfig.STATUS_SIGNALEMENTS, key = "#p0", unless = "#result == null")
     Optional<StatusSignalement> findByLibelle(String libelle);
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.STATUS_SIGNALEMENT_LIST, key = "'all'")
+    List<StatusSignalement> findAll();
 }
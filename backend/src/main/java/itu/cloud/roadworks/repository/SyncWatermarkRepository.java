@@ -0,0 +1,9 @@
+package itu.cloud.roadworks.repository;
+
+import itu.cloud.roadworks.model.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, String> {
+}
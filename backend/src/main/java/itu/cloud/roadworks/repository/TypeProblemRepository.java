@@ -1,9 +1,18 @@
 package itu.cloud.roadworks.repository;
 
+import itu.cloud.roadworks.config.CacheConfig;
 import itu.cloud.roadworks.model.TypeProblem;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
 import java.util.Optional;
 
 public interface TypeProblemRepository extends JpaRepository<TypeProblem, Long> {
+    // Libellé inconnu non mis en cache
+    @Cacheable(cacheNames = CacheConfig.TYPE_PROBLEMS, key = "#p0", unless = "#result == null")
     Optional<TypeProblem> findByLibelle(String libelle);
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TYPE_PROBLEM_LIST, key = "'all'")
+    List<TypeProblem> findAll();
 }
@@ -1,17 +1,15 @@
 package itu.cloud.roadworks.service;
 
+import itu.cloud.roadworks.dto.WorkAnalyticsRow;
 import itu.cloud.roadworks.dto.WorkStatsDto;
 import itu.cloud.roadworks.dto.WorkTimelineDto;
-import itu.cloud.roadworks.model.Company;
-import itu.cloud.roadworks.model.Signalement;
-import itu.cloud.roadworks.model.SignalementWork;
-import itu.cloud.roadworks.repository.CompanyRepository;
-import itu.cloud.roadworks.repository.SignalementRepository;
-import itu.cloud.roadworks.repository.SignalementWorkRepository;
+import itu.cloud.roadworks.model.SignalementReadModel;
+import itu.cloud.roadworks.repository.SignalementReadModelRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
@@ -21,60 +19,25 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AnalyticsService {
 
-    private final SignalementWorkRepository workRepository;
-    private final SignalementRepository signalementRepository;
-    private final CompanyRepository companyRepository;
+    private final SignalementReadModelRepository readModelRepository;
 
     public WorkStatsDto computeWorkStats(Optional<Long> companyIdOpt, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<String> typeProblem) {
-        List<SignalementWork> works = workRepository.findAll();
-
-        if (companyIdOpt.isPresent()) {
-            Long cid = companyIdOpt.get();
-            works = works.stream()
-                    .filter(w -> w.getCompany() != null && Objects.equals(w.getCompany().getId(), cid))
-                    .collect(Collectors.toList());
-        }
-
-        if (typeProblem.isPresent()) {
-            String typeKey = typeProblem.get().toLowerCase();
-            works = works.stream()
-                    .filter(w -> w.getSignalement() != null
-                            && w.getSignalement().getTypeProblem() != null
-                            && w.getSignalement().getTypeProblem().getLibelle() != null
-                            && w.getSignalement().getTypeProblem().getLibelle().toLowerCase().equals(typeKey))
-                    .collect(Collectors.toList());
-        }
-
-        if (startDate.isPresent() || endDate.isPresent()) {
-            LocalDate start = startDate.orElse(LocalDate.MIN);
-            LocalDate end = endDate.orElse(LocalDate.MAX);
-            works = works.stream()
-                    .filter(w -> {
-                        LocalDate created = toLocalDate(w.getSignalement() != null && w.getSignalement().getCreatedAt() != null
-                                ? Date.from(w.getSignalement().getCreatedAt())
-                                : null);
-                        LocalDate s = w.getStartDate();
-                        LocalDate e = w.getRealEndDate();
-                        LocalDate pivot = created != null ? created : (s != null ? s : e);
-                        if (pivot == null) return false;
-                        return !pivot.isBefore(start) && !pivot.isAfter(end);
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        Map<Long, Company> companies = companyRepository.findAll()
-                .stream()
-                .collect(Collectors.toMap(Company::getId, c -> c));
+        // Tous les travaux de chaque signalement, y compris ceux remplacés par un travail plus récent
+        ZoneId zone = ZoneId.systemDefault();
+        List<WorkAnalyticsRow> works = readModelRepository.findWorksForAnalytics(
+                companyIdOpt.orElse(null),
+                typeProblem.map(String::toLowerCase).orElse(null),
+                startDate.map(d -> d.atStartOfDay(zone).toInstant()).orElse(null),
+                endDate.map(d -> d.plusDays(1).atStartOfDay(zone).toInstant()).orElse(null));
 
         WorkStatsDto.Stat overall = computeStat(null, "Tous", works);
 
         // group by company
-        Map<Company, List<SignalementWork>> grouped = works.stream()
-                .filter(w -> w.getCompany() != null)
-                .collect(Collectors.groupingBy(SignalementWork::getCompany));
+        Map<Long, List<WorkAnalyticsRow>> grouped = works.stream()
+                .collect(Collectors.groupingBy(WorkAnalyticsRow::getCompanyId));
 
         List<WorkStatsDto.Stat> byCompany = grouped.entrySet().stream()
-                .map(entry -> computeStat(entry.getKey().getId(), entry.getKey().getName(), entry.getValue()))
+                .map(entry -> computeStat(entry.getKey(), entry.getValue().get(0).getCompanyName(), entry.getValue()))
                 .sorted(Comparator.comparing(WorkStatsDto.Stat::getCompanyName, Comparator.nullsLast(String::compareToIgnoreCase)))
                 .toList();
 
@@ -84,41 +47,15 @@ public class AnalyticsService {
                 .build();
     }
 
+    // Une frise par signalement, avec son dernier travail (recopié dans le modèle de lecture)
     public List<WorkTimelineDto> listWorkTimelines(Optional<Long> companyIdOpt, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<String> typeProblem) {
-        List<Signalement> signalements = signalementRepository.findAll();
-
-        if (typeProblem.isPresent()) {
-            String typeKey = typeProblem.get().toLowerCase();
-            signalements = signalements.stream()
-                    .filter(s -> s.getTypeProblem() != null
-                            && s.getTypeProblem().getLibelle() != null
-                            && s.getTypeProblem().getLibelle().toLowerCase().equals(typeKey))
-                    .collect(Collectors.toList());
-        }
-
-        if (startDate.isPresent() || endDate.isPresent()) {
-            LocalDate start = startDate.orElse(LocalDate.MIN);
-            LocalDate end = endDate.orElse(LocalDate.MAX);
-            signalements = signalements.stream()
-                    .filter(s -> {
-                        LocalDate created = toLocalDate(Date.from(s.getCreatedAt()));
-                        if (created == null) return false;
-                        return !created.isBefore(start) && !created.isAfter(end);
-                    })
-                    .collect(Collectors.toList());
-        }
+        return findRows(companyIdOpt, startDate, endDate, typeProblem).stream()
+                .map(row -> {
+                    String status = row.getEtat();
 
-        return signalements.stream()
-                .map(signalement -> {
-                    SignalementWork latestWork = signalement.getWorks().stream().findFirst().orElse(null);
-                    String status = signalement.getStatuses().stream()
-                            .findFirst()
-                            .map(s -> s.getStatusSignalement().getLibelle())
-                            .orElse(null);
-
-                    LocalDate start = latestWork != null && latestWork.getStartDate() != null
-                            ? latestWork.getStartDate()
-                            : toLocalDate(Date.from(signalement.getCreatedAt()));
+                    LocalDate start = row.getWorkStartDate() != null
+                            ? row.getWorkStartDate()
+                            : toLocalDate(row.getDateProblem());
 
                     LocalDate inProgress = null;
                     LocalDate end = null;
@@ -126,63 +63,53 @@ public class AnalyticsService {
                     if ("en_cours".equalsIgnoreCase(status)) {
                         inProgress = start;
                     }
-                    if ("terminé".equalsIgnoreCase(status) || "resolu".equalsIgnoreCase(status) || "completed".equalsIgnoreCase(status)) {
-                        if (latestWork != null && latestWork.getRealEndDate() != null) {
-                            end = latestWork.getRealEndDate();
-                        } else if (signalement.getStatuses() != null && !signalement.getStatuses().isEmpty()) {
-                            end = signalement.getStatuses().stream()
-                                    .findFirst()
-                                    .map(st -> toLocalDate(Date.from(st.getUpdatedAt())))
-                                    .orElse(null);
-                        }
+                    if (isCompleted(status)) {
+                        end = row.getWorkRealEndDate() != null
+                                ? row.getWorkRealEndDate()
+                                : toLocalDate(row.getStatusDate());
                         inProgress = null;
                     }
 
-                    Long workCompanyId = latestWork != null && latestWork.getCompany() != null ? latestWork.getCompany().getId() : null;
-                    String workCompanyName = latestWork != null && latestWork.getCompany() != null ? latestWork.getCompany().getName() : null;
-
-                    // filtre companyId sur la ligne mappée
-                    if (companyIdOpt.isPresent() && !Objects.equals(workCompanyId, companyIdOpt.get())) {
-                        return null;
-                    }
-
                     return WorkTimelineDto.builder()
-                            .id(signalement.getId())
-                            .companyName(workCompanyName)
-                            .typeProblem(signalement.getTypeProblem() != null ? signalement.getTypeProblem().getLibelle() : null)
-                            .createdAt(signalement.getCreatedAt())
+                            .id(row.getSignalementId())
+                            .companyName(row.getCompanyName())
+                            .typeProblem(row.getTypeProblem())
+                            .createdAt(row.getDateProblem())
                             .startDate(start)
                             .inProgressDate(inProgress)
                             .endDate(end)
                             .build();
                 })
-                .filter(Objects::nonNull)
                 .sorted(Comparator.comparing(WorkTimelineDto::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())))
                 .toList();
     }
 
-    private WorkStatsDto.Stat computeStat(Long companyId, String companyName, List<SignalementWork> works) {
+    /**
+     * Lignes du modèle de lecture filtrées en base. Les bornes de dates portent sur le jour de création
+     * du signalement (fuseau du serveur), bornes incluses.
+     */
+    private List<SignalementReadModel> findRows(Optional<Long> companyIdOpt, Optional<LocalDate> startDate, Optional<LocalDate> endDate, Optional<String> typeProblem) {
+        ZoneId zone = ZoneId.systemDefault();
+        return readModelRepository.findForAnalytics(
+                companyIdOpt.orElse(null),
+                typeProblem.map(String::toLowerCase).orElse(null),
+                startDate.map(d -> d.atStartOfDay(zone).toInstant()).orElse(null),
+                endDate.map(d -> d.plusDays(1).atStartOfDay(zone).toInstant()).orElse(null));
+    }
+
+    private WorkStatsDto.Stat computeStat(Long companyId, String companyName, List<WorkAnalyticsRow> works) {
         List<Double> lead = new ArrayList<>();
         List<Double> inProgress = new ArrayList<>();
         List<Double> total = new ArrayList<>();
 
-        for (SignalementWork w : works) {
-            Signalement s = w.getSignalement();
-            LocalDate created = s != null && s.getCreatedAt() != null
-                    ? LocalDate.ofInstant(s.getCreatedAt(), ZoneId.systemDefault())
-                    : null;
+        for (WorkAnalyticsRow w : works) {
+            LocalDate created = toLocalDate(w.getDateProblem());
             LocalDate start = w.getStartDate();
             LocalDate end = w.getRealEndDate();
 
             // fallback: si pas de realEndDate mais statut signalement terminé, utiliser la date de statut
-            if (end == null && s != null && s.getStatuses() != null && !s.getStatuses().isEmpty()) {
-                var latestStatus = s.getStatuses().stream().findFirst().orElse(null);
-                if (latestStatus != null) {
-                    String label = latestStatus.getStatusSignalement().getLibelle();
-                    if ("terminé".equalsIgnoreCase(label) || "resolu".equalsIgnoreCase(label) || "completed".equalsIgnoreCase(label)) {
-                        end = LocalDate.ofInstant(latestStatus.getUpdatedAt(), ZoneId.systemDefault());
-                    }
-                }
+            if (end == null && isCompleted(w.getEtat())) {
+                end = toLocalDate(w.getStatusDate());
             }
 
             // si pas de date de fin, ignorer pour le cycle complet
@@ -216,6 +143,10 @@ public class AnalyticsService {
                 .build();
     }
 
+    private boolean isCompleted(String status) {
+        return "terminé".equalsIgnoreCase(status) || "resolu".equalsIgnoreCase(status) || "completed".equalsIgnoreCase(status);
+    }
+
     private double daysBetween(LocalDate end, LocalDate start) {
         return Duration.between(start.atStartOfDay(), end.atStartOfDay()).toDays();
     }
@@ -225,8 +156,8 @@ public class AnalyticsService {
         return values.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
     }
 
-    private LocalDate toLocalDate(Date date) {
-        if (date == null) return null;
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    private LocalDate toLocalDate(Instant instant) {
+        if (instant == null) return null;
+        return LocalDate.ofInstant(instant, ZoneId.systemDefault());
     }
 }
@@ -4,11 +4,9 @@ import itu.cloud.roadworks.dto.AuthResponse;
 import itu.cloud.roadworks.dto.LoginRequest;
 import itu.cloud.roadworks.dto.RegisterRequest;
 import itu.cloud.roadworks.model.Account;
-import itu.cloud.roadworks.model.Config;
 import itu.cloud.roadworks.model.Role;
 import itu.cloud.roadworks.model.Session;
 import itu.cloud.roadworks.repository.AccountRepository;
-import itu.cloud.roadworks.repository.ConfigRepository;
 import itu.cloud.roadworks.repository.RoleRepository;
 import itu.cloud.roadworks.repository.SessionRepository;
 import lombok.RequiredArgsConstructor;
@@ -34,13 +32,12 @@ public class AuthService {
     private final AccountRepository accountRepository;
     private final RoleRepository roleRepository;
     private final SessionRepository sessionRepository;
-    private final ConfigRepository configRepository;
+    private final ConfigService configService;
     private final FirebaseService firebaseService;
+    private final SessionTokenCache sessionTokenCache;
 
     private static final String ROLE_MANAGER = "manager";
     private static final String ROLE_UTILISATEUR = "utilisateur";
-    private static final int DEFAULT_SESSION_DURATION_MINUTES = 60;
-    private static final int DEFAULT_MAX_ATTEMPTS = 3;
 
     @Transactional
     public AuthResponse login(LoginRequest request, String ipAddress, String userAgent) {
@@ -176,27 +173,39 @@ public AuthResponse register(RegisterRequest request) {
     public void logout(String token) {
         sessionRepository.findByToken(token)
                 .ifPresent(sessionRepository::delete);
+        sessionTokenCache.evict(List.of(token));
     }
 
     public Optional<Account> validateToken(String token) {
-        return sessionRepository.findByTokenAndExpiresAtAfter(token, Instant.now())
-                .map(Session::getAccount);
+        return sessionTokenCache.get(token, () -> sessionRepository.findValidWithAccount(token, Instant.now()));
+    }
+
+    // Compte bloqué: ses sessions sont supprimées et retirées du cache de tokens de toutes les instances
+    private void revokeSessions(Account account) {
+        List<String> tokens = sessionRepository.findTokensByAccountId(account.getId());
+        if (tokens.isEmpty()) {
+            return;
+        }
+        sessionRepository.deleteAllByAccountId(account.getId());
+        sessionTokenCache.evict(tokens);
+        log.info("{} session(s) révoquée(s) pour {}", tokens.size(), account.getUsername());
     }
 
     private void handleFailedLogin(Account account) {
-        int maxAttempts = getMaxAttempts();
+        int maxAttempts = configService.getMaxAttempts();
         account.setAttempts(account.getAttempts() + 1);
         account.setLastFailedLogin(Instant.now());
 
         if (account.getAttempts() >= maxAttempts) {
             account.setIsLocked(true);
+            revokeSessions(account);
         }
 
         accountRepository.save(account);
     }
 
     private Session createSession(Account account, String ipAddress, String userAgent) {
-        int sessionDuration = getSessionDuration();
+        int sessionDuration = configService.getSessionDuration();
 
         String token = generateToken();
         Session session = Session.builder()
@@ -225,20 +234,6 @@ public AuthResponse register(RegisterRequest request) {
         }
     }
 
-    private int getSessionDuration() {
-        return configRepository.findAll().stream()
-                .findFirst()
-                .map(Config::getSessionDuration)
-                .orElse(DEFAULT_SESSION_DURATION_MINUTES);
-    }
-
-    private int getMaxAttempts() {
-        return configRepository.findAll().stream()
-                .findFirst()
-                .map(Config::getMaxAttempts)
-                .orElse(DEFAULT_MAX_ATTEMPTS);
-    }
-
     @Transactional(readOnly = true)
     public List<Role> getAllRoles() {
         return roleRepository.findAll();
@@ -503,6 +498,8 @@ public AuthResponse register(RegisterRequest request) {
                         account.setIsActive(isActive);
                         if (!isLocked) {
                             account.setAttempts(0);
+                        } else {
+                            revokeSessions(account);
                         }
                         accountRepository.save(account);
                         updatedFromFirebase++;
@@ -724,6 +721,8 @@ public AuthResponse register(RegisterRequest request) {
 
             if (updated) {
                 accountRepository.save(account);
+                // Le rôle mis en cache avec les sessions du compte n'est plus à jour
+                sessionTokenCache.evict(sessionRepository.findTokensByAccountId(account.getId()));
             }
 
             return AuthResponse.builder()
@@ -0,0 +1,110 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.model.Config;
+import itu.cloud.roadworks.repository.ConfigRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Configuration système (table config) gardée en mémoire: la lecture d'une valeur ne touche pas la base.
+ * Une modification est écrite en base puis annoncée par NOTIFY sur le canal config_changed; chaque instance
+ * (celle-ci comprise) relit alors la table et remplace sa copie d'un seul coup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConfigService {
+
+    static final String CHANNEL = "config_changed";
+
+    private static final int DEFAULT_SESSION_DURATION_MINUTES = 60;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private final ConfigRepository configRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabaseNotifications notifications;
+
+    /**
+     * Valeurs de configuration à un instant donné, jamais modifiées.
+     * @param sessionDuration durée des nouvelles sessions, en minutes
+     */
+    public record Settings(int maxAttempts, int sessionDuration) {
+        private static Settings of(Config config) {
+            return new Settings(config.getMaxAttempts(), config.getSessionDuration());
+        }
+    }
+
+    private final AtomicReference<Settings> current = new AtomicReference<>(
+            new Settings(DEFAULT_MAX_ATTEMPTS, DEFAULT_SESSION_DURATION_MINUTES));
+
+    @PostConstruct
+    public void init() {
+        reload();
+        // Une modification faite pendant une coupure de l'écoute n'a pas été annoncée
+        notifications.subscribe(CHANNEL, payload -> reload(), this::reload);
+    }
+
+    public Settings get() {
+        return current.get();
+    }
+
+    public int getMaxAttempts() {
+        return current.get().maxAttempts();
+    }
+
+    public int getSessionDuration() {
+        return current.get().sessionDuration();
+    }
+
+    /**
+     * Modifie les valeurs non nulles et les rend visibles sur toutes les instances.
+     * @throws IllegalArgumentException si une valeur n'est pas strictement positive
+     */
+    public Settings update(Integer maxAttempts, Integer sessionDuration) {
+        if (maxAttempts != null && maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts doit être supérieur ou égal à 1");
+        }
+        if (sessionDuration != null && sessionDuration < 1) {
+            throw new IllegalArgumentException("sessionDuration doit être supérieur ou égal à 1");
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Settings before = current.get();
+            Config config = configRepository.findFirstByOrderByIdAsc()
+                    .orElseGet(() -> Config.builder()
+                            .maxAttempts(before.maxAttempts())
+                            .sessionDuration(before.sessionDuration())
+                            .build());
+            if (maxAttempts != null) {
+                config.setMaxAttempts(maxAttempts);
+            }
+            if (sessionDuration != null) {
+                config.setSessionDuration(sessionDuration);
+            }
+            configRepository.save(config);
+            notifications.publish(CHANNEL, "");
+        });
+        // Sans attendre la notification: la réponse donne déjà les nouvelles valeurs
+        Settings updated = reload();
+        log.info("Configuration modifiée: {} tentative(s), sessions de {} minute(s)",
+                updated.maxAttempts(), updated.sessionDuration());
+        return updated;
+    }
+
+    /**
+     * Relit la table. Les rechargements sont sérialisés: le dernier lit toujours l'état validé le plus récent,
+     * une lecture plus ancienne ne peut pas l'écraser.
+     */
+    public synchronized Settings reload() {
+        Settings settings = configRepository.findFirstByOrderByIdAsc()
+                .map(Settings::of)
+                .orElseGet(() -> new Settings(DEFAULT_MAX_ATTEMPTS, DEFAULT_SESSION_DURATION_MINUTES));
+        current.set(settings);
+        return settings;
+    }
+}
@@ -0,0 +1,145 @@
+package itu.cloud.roadworks.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Notifications Postgres (LISTEN/NOTIFY) entre les instances de l'application.
+ * Les abonnements sont pris à l'initialisation des beans; l'écoute démarre quand l'application est prête,
+ * sur une connexion dédiée hors du pool, rouverte après une coupure. À chaque (re)connexion, les abonnés
+ * sont prévenus: les notifications envoyées pendant la coupure sont perdues.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseNotifications {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${database.notifications.poll-timeout-ms:5000}")
+    private int pollTimeoutMillis;
+
+    @Value("${database.notifications.reconnect-delay-ms:5000}")
+    private long reconnectDelayMillis;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    private record Subscription(String channel, Consumer<String> handler, Runnable onConnected) {
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private Thread listener;
+    private volatile boolean stopping;
+    private volatile boolean listening;
+
+    /**
+     * @param handler     appelé sur le thread d'écoute avec le contenu de chaque notification du canal
+     * @param onConnected appelé à chaque (re)connexion, après le LISTEN
+     */
+    public void subscribe(String channel, Consumer<String> handler, Runnable onConnected) {
+        subscriptions.add(new Subscription(channel, handler, onConnected));
+    }
+
+    /**
+     * Envoie une notification. Dans une transaction, elle n'est délivrée qu'à sa validation
+     * (et jamais si elle est annulée); l'instance émettrice la reçoit aussi.
+     */
+    public void publish(String channel, String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+    }
+
+    // Vrai tant que la connexion d'écoute est ouverte
+    public boolean isListening() {
+        return listening;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        listener = new Thread(this::listen, "database-notifications");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (!stopping) {
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : subscriptions.stream().map(Subscription::channel).distinct().toList()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                for (Subscription subscription : subscriptions) {
+                    run(subscription, subscription.onConnected());
+                }
+                listening = true;
+                log.info("Écoute des notifications Postgres ({} abonnement(s))", subscriptions.size());
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!stopping) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        for (Subscription subscription : subscriptions) {
+                            if (subscription.channel().equals(notification.getName())) {
+                                run(subscription, () -> subscription.handler().accept(notification.getParameter()));
+                            }
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                listening = false;
+                if (stopping) {
+                    return;
+                }
+                log.warn("Écoute des notifications Postgres interrompue, reconnexion dans {} ms: {}",
+                        reconnectDelayMillis, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Une erreur d'un abonné ne coupe pas l'écoute des autres
+    private static void run(Subscription subscription, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.error("Notification du canal {} non traitée: {}", subscription.channel(), e.getMessage());
+        }
+    }
+}
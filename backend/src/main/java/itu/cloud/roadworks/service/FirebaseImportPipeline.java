@@ -0,0 +1,248 @@
+package itu.cloud.roadworks.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Import des documents Firestore en trois étages reliés par des files bornées:
+ * lecture des pages (1 thread), analyse des documents (parseThreads) puis écriture par lots (writeThreads).
+ * La lecture de la page suivante et l'analyse (décodage et stockage des photos) se font pendant l'écriture
+ * de la précédente; les files bornées limitent le nombre de pages en mémoire.
+ * Les pages peuvent être écrites dans le désordre, mais le listener les reçoit dans l'ordre de lecture
+ * (utile pour faire avancer un curseur).
+ *
+ * @param <T> document analysé, transmis de l'étage d'analyse à l'étage d'écriture
+ */
+@Slf4j
+public class FirebaseImportPipeline<T> {
+
+    @FunctionalInterface
+    public interface PageParser<T> {
+        List<T> parse(List<QueryDocumentSnapshot> documents) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface PageWriter<T> {
+        PageOutcome write(List<T> items) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface PageListener<T> {
+        void pageWritten(List<T> items, PageOutcome outcome) throws Exception;
+    }
+
+    /**
+     * Résultat de l'écriture d'une page.
+     * @param imported nombre de documents importés
+     * @param firstFailure position du premier document en échec dans la page, -1 si aucun
+     */
+    public record PageOutcome(int imported, int firstFailure) {
+    }
+
+    /**
+     * Compteurs d'un étage: documents traités, temps de travail et temps d'attente sur les files (cumulés sur
+     * les threads). L'étage le plus lent a le plus petit débit; les étages qui l'entourent attendent.
+     */
+    public record StageStats(String stage, int threads, long documents, long busyMillis, long waitMillis) {
+        // Documents par seconde de travail de l'étage, tous threads confondus
+        @JsonProperty("throughput")
+        public long throughput() {
+            return busyMillis == 0 ? 0 : documents * 1000L * threads / busyMillis;
+        }
+    }
+
+    /**
+     * @param pagesWithFailures pages dont au moins un document n'a pas pu être importé
+     */
+    public record Stats(long pages, long documents, long imported, long pagesWithFailures, long elapsedMillis,
+                        List<StageStats> stages) {
+    }
+
+    private record Page<E>(long number, List<E> items) {
+    }
+
+    // Fin de flux: chaque consommateur le repasse aux autres avant de s'arrêter
+    private static final Page<?> END = new Page<>(-1, List.of());
+
+    private final int parseThreads;
+    private final int writeThreads;
+    private final int queueCapacity;
+
+    public FirebaseImportPipeline(int parseThreads, int writeThreads, int queueCapacity) {
+        this.parseThreads = Math.max(1, parseThreads);
+        this.writeThreads = Math.max(1, writeThreads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Exécute le pipeline jusqu'à la dernière page. À la première erreur d'un étage, les autres sont
+     * interrompus et l'erreur est relancée; les pages déjà transmises au listener restent écrites.
+     */
+    public Stats run(FirestorePager pager, PageParser<T> parser, PageWriter<T> writer,
+                     PageListener<T> listener) throws Exception {
+        long start = System.currentTimeMillis();
+        BlockingQueue<Page<QueryDocumentSnapshot>> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Page<T>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        Counter fetch = new Counter("lecture", 1);
+        Counter parse = new Counter("analyse", parseThreads);
+        Counter write = new Counter("écriture", writeThreads);
+        InOrderCompletion<T> completion = new InOrderCompletion<>(listener);
+        AtomicInteger runningParsers = new AtomicInteger(parseThreads);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(1 + parseThreads + writeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "firebase-import-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorCompletionService<Void> tasks = new ExecutorCompletionService<>(executor);
+
+        tasks.submit(() -> {
+            long number = 0;
+            while (pager.hasNext()) {
+                long begin = System.nanoTime();
+                List<QueryDocumentSnapshot> documents = pager.next();
+                fetch.busy(begin, documents.size());
+                fetch.put(fetched, new Page<>(number++, documents));
+            }
+            fetch.put(fetched, end());
+            return null;
+        });
+        for (int i = 0; i < parseThreads; i++) {
+            tasks.submit(() -> {
+                for (Page<QueryDocumentSnapshot> page = parse.take(fetched); page != END; page = parse.take(fetched)) {
+                    long begin = System.nanoTime();
+                    List<T> items = parser.parse(page.items());
+                    parse.busy(begin, page.items().size());
+                    parse.put(parsed, new Page<>(page.number(), items));
+                }
+                fetched.put(end());
+                if (runningParsers.decrementAndGet() == 0) {
+                    parse.put(parsed, end());
+                }
+                return null;
+            });
+        }
+        for (int i = 0; i < writeThreads; i++) {
+            tasks.submit(() -> {
+                for (Page<T> page = write.take(parsed); page != END; page = write.take(parsed)) {
+                    long begin = System.nanoTime();
+                    PageOutcome outcome = writer.write(page.items());
+                    write.busy(begin, page.items().size());
+                    completion.complete(page.number(), page.items(), outcome);
+                }
+                parsed.put(end());
+                return null;
+            });
+        }
+
+        try {
+            for (int i = 0; i < 1 + parseThreads + writeThreads; i++) {
+                tasks.take().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            // Interrompt les étages encore bloqués sur une file après une erreur
+            executor.shutdownNow();
+        }
+
+        Stats stats = new Stats(completion.pages, fetch.documents.get(), completion.imported, completion.pagesWithFailures,
+                System.currentTimeMillis() - start, List.of(fetch.stats(), parse.stats(), write.stats()));
+        for (StageStats stage : stats.stages()) {
+            log.info("Import Firebase, étage {} ({} thread(s)): {} document(s), {} ms de travail, {} ms d'attente, {} doc/s",
+                    stage.stage(), stage.threads(), stage.documents(), stage.busyMillis(), stage.waitMillis(),
+                    stage.throughput());
+        }
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Page<E> end() {
+        return (Page<E>) END;
+    }
+
+    private static final class Counter {
+        private final String stage;
+        private final int threads;
+        private final AtomicLong documents = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        private Counter(String stage, int threads) {
+            this.stage = stage;
+            this.threads = threads;
+        }
+
+        void busy(long beginNanos, int count) {
+            busyNanos.addAndGet(System.nanoTime() - beginNanos);
+            documents.addAndGet(count);
+        }
+
+        <E> Page<E> take(BlockingQueue<Page<E>> queue) throws InterruptedException {
+            long begin = System.nanoTime();
+            Page<E> page = queue.take();
+            waitNanos.addAndGet(System.nanoTime() - begin);
+            return page;
+        }
+
+        <E> void put(BlockingQueue<Page<E>> queue, Page<E> page) throws InterruptedException {
+            long begin = System.nanoTime();
+            queue.put(page);
+            waitNanos.addAndGet(System.nanoTime() - begin);
+        }
+
+        StageStats stats() {
+            return new StageStats(stage, threads, documents.get(),
+                    busyNanos.get() / 1_000_000, waitNanos.get() / 1_000_000);
+        }
+    }
+
+    // Remet les pages écrites dans l'ordre de lecture avant de les passer au listener
+    private static final class InOrderCompletion<T> {
+        private final PageListener<T> listener;
+        private final Map<Long, Map.Entry<List<T>, PageOutcome>> pending = new TreeMap<>();
+        private long next;
+        private long pages;
+        private long imported;
+        private long pagesWithFailures;
+
+        private InOrderCompletion(PageListener<T> listener) {
+            this.listener = listener;
+        }
+
+        synchronized void complete(long number, List<T> items, PageOutcome outcome) throws Exception {
+            pending.put(number, Map.entry(items, outcome));
+            List<Map.Entry<List<T>, PageOutcome>> ready = new ArrayList<>();
+            for (Map.Entry<List<T>, PageOutcome> page = pending.remove(next); page != null; page = pending.remove(next)) {
+                ready.add(page);
+                next++;
+            }
+            for (Map.Entry<List<T>, PageOutcome> page : ready) {
+                pages++;
+                imported += page.getValue().imported();
+                if (page.getValue().firstFailure() >= 0) {
+                    pagesWithFailures++;
+                }
+                listener.pageWritten(page.getKey(), page.getValue());
+            }
+        }
+    }
+}
@@ -5,27 +5,59 @@ import com.google.cloud.firestore.EventListener;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreException;
 import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
-import itu.cloud.roadworks.dto.SignalementNotification;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écoute la collection roadworks_reports et répercute en base les documents ajoutés, modifiés et supprimés.
+ * Les changements reçus sont regroupés par document (le dernier l'emporte) puis écrits par lots:
+ * le premier changement d'un lot déclenche son écriture debounce-ms plus tard, ou tout de suite si le lot
+ * atteint max-batch documents. Les écritures ont lieu sur un thread dédié, jamais sur celui du listener.
+ * Au démarrage, le listener reçoit toute la collection: les documents déjà importés et inchangés sont écartés.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FirebaseListenerService {
 
     private final FirebaseService firebaseService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SignalementService signalementService;
+
+    @Value("${firebase.listener.debounce-ms:500}")
+    private long debounceMillis;
+
+    @Value("${firebase.listener.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${firebase.listener.retry-delay-ms:5000}")
+    private long retryDelayMillis;
 
     private ListenerRegistration listenerRegistration;
 
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "firebase-listener-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Changements en attente d'écriture, par id de document (null: document supprimé)
+    private final Map<String, QueryDocumentSnapshot> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
     @PostConstruct
     public void startListening() {
         try {
@@ -35,7 +67,7 @@ public class FirebaseListenerService {
                 return;
             }
 
-            log.info("Démarrage du listener Firebase pour les nouveaux signalements...");
+            log.info("Démarrage du listener Firebase des signalements...");
 
             listenerRegistration = db.collection("roadworks_reports")
                     .addSnapshotListener(new EventListener<QuerySnapshot>() {
@@ -48,31 +80,7 @@ public class FirebaseListenerService {
 
                             if (snapshots == null) return;
 
-                            for (DocumentChange dc : snapshots.getDocumentChanges()) {
-                                if (dc.getType() == DocumentChange.Type.ADDED) {
-                                    // Nouveau document ajouté
-                                    var doc = dc.getDocument();
-                                    String status = doc.getString("status");
-                                    Double lat = doc.getDouble("lat");
-                                    Double lng = doc.getDouble("lng");
-                                    String description = doc.getString("description");
-
-                                    log.info("Nouveau signalement détecté: {} à {},{}", status, lat, lng);
-
-                                    // Envoyer notification WebSocket
-                                    SignalementNotification notification = SignalementNotification.builder()
-                                            .type("NEW_SIGNALEMENT")
-                                            .typeProblem(status)
-                                            .location(lat + "," + lng)
-                                            .description(description)
-                                            .timestamp(Instant.now())
-                                            .message("Nouveau signalement: " + getStatusLabel(status))
-                                            .build();
-
-                                    messagingTemplate.convertAndSend("/topic/signalements", notification);
-                                    log.info("Notification WebSocket envoyée pour nouveau signalement");
-                                }
-                            }
+                            enqueue(snapshots.getDocumentChanges());
                         }
                     });
 
@@ -88,19 +96,71 @@ public class FirebaseListenerService {
             listenerRegistration.remove();
             log.info("Listener Firebase arrêté");
         }
+        writer.shutdown();
+    }
+
+    private synchronized void enqueue(List<DocumentChange> changes) {
+        for (DocumentChange change : changes) {
+            QueryDocumentSnapshot document = change.getDocument();
+            pending.put(document.getId(), change.getType() == DocumentChange.Type.REMOVED ? null : document);
+        }
+        if (pending.size() >= maxBatch) {
+            writer.execute(this::flush);
+            flushScheduled = true;
+        } else if (!flushScheduled && !pending.isEmpty()) {
+            writer.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+            flushScheduled = true;
+        }
     }
 
-    private String getStatusLabel(String status) {
-        if (status == null) return "Signalement";
-        switch (status) {
-            case "pothole": return "Nid-de-poule";
-            case "blocked_road": return "Route barrée";
-            case "accident": return "Accident";
-            case "construction": return "Travaux";
-            case "flooding": return "Inondation";
-            case "debris": return "Débris";
-            case "poor_surface": return "Mauvaise surface";
-            default: return status;
+    private synchronized Map<String, QueryDocumentSnapshot> drain() {
+        Map<String, QueryDocumentSnapshot> batch = new LinkedHashMap<>();
+        var iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatch) {
+            var entry = iterator.next();
+            batch.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+        flushScheduled = !pending.isEmpty();
+        if (flushScheduled) {
+            writer.execute(this::flush);
+        }
+        return batch;
+    }
+
+    // Lot en échec remis en attente, sans écraser un changement plus récent du même document
+    private synchronized void requeue(Map<String, QueryDocumentSnapshot> batch) {
+        batch.forEach((id, document) -> {
+            if (!pending.containsKey(id)) {
+                pending.put(id, document);
+            }
+        });
+        if (!flushScheduled) {
+            writer.schedule(this::flush, retryDelayMillis, TimeUnit.MILLISECONDS);
+            flushScheduled = true;
+        }
+    }
+
+    private void flush() {
+        Map<String, QueryDocumentSnapshot> batch = drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<QueryDocumentSnapshot> documents = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        batch.forEach((id, document) -> {
+            if (document == null) {
+                removed.add(id);
+            } else {
+                documents.add(document);
+            }
+        });
+        try {
+            signalementService.applyFirebaseChanges(documents, removed);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'écriture des changements Firebase ({} document(s)), nouvel essai dans {} ms: {}",
+                    batch.size(), retryDelayMillis, e.getMessage());
+            requeue(batch);
         }
     }
 }
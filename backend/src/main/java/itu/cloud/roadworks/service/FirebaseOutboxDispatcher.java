@@ -0,0 +1,125 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.model.FirebaseOutbox;
+import itu.cloud.roadworks.repository.FirebaseOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Tâche de fond qui envoie vers Firestore les signalements en attente dans firebase_outbox.
+ * Les lignes dues sont réservées par lots (FOR UPDATE SKIP LOCKED puis bail de lease-seconds): plusieurs
+ * instances peuvent tourner sans envoyer deux fois le même lot. Un envoi réussi supprime la ligne, un échec
+ * la reprogramme avec un délai doublé à chaque tentative (backoff exponentiel plafonné).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FirebaseOutboxDispatcher {
+
+    private final FirebaseOutboxRepository outboxRepository;
+    private final SignalementService signalementService;
+    private final FirebaseService firebaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${firebase.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${firebase.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${firebase.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${firebase.outbox.initial-backoff-seconds:5}")
+    private long initialBackoffSeconds;
+
+    @Value("${firebase.outbox.max-backoff-seconds:900}")
+    private long maxBackoffSeconds;
+
+    // Ligne réservée: la révision lue permet de ne pas effacer une modification arrivée pendant l'envoi
+    private record Claim(Long signalementId, Long revision, int attempts) {
+    }
+
+    @Scheduled(initialDelayString = "${firebase.outbox.initial-delay-ms:10000}",
+            fixedDelayString = "${firebase.outbox.delay-ms:2000}")
+    public void dispatch() {
+        if (!enabled || firebaseService.getFirestore() == null || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int sent = 0;
+            int failed = 0;
+            while (true) {
+                List<Claim> claims = transactionTemplate.execute(status -> claim());
+                if (claims == null || claims.isEmpty()) {
+                    break;
+                }
+                int failures = send(claims);
+                sent += claims.size() - failures;
+                failed += failures;
+                if (claims.size() < batchSize) {
+                    break;
+                }
+            }
+            if (sent > 0 || failed > 0) {
+                log.info("Outbox Firebase: {} signalement(s) envoyé(s), {} en échec", sent, failed);
+            }
+        } catch (Exception e) {
+            log.error("Erreur lors de l'envoi de l'outbox Firebase: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Réserve les lignes dues: elles ne redeviennent dues qu'à la fin du bail si l'instance s'arrête pendant l'envoi
+    private List<Claim> claim() {
+        Instant leaseEnd = Instant.now().plusSeconds(leaseSeconds);
+        List<FirebaseOutbox> rows = outboxRepository.lockDue(batchSize);
+        for (FirebaseOutbox row : rows) {
+            row.setNextAttemptAt(leaseEnd);
+        }
+        return rows.stream()
+                .map(row -> new Claim(row.getSignalementId(), row.getRevision(), row.getAttempts()))
+                .toList();
+    }
+
+    private int send(List<Claim> claims) {
+        Map<Long, String> failures;
+        try {
+            failures = signalementService.pushPendingToFirebase(claims.stream().map(Claim::signalementId).toList());
+        } catch (Exception e) {
+            // Lot entier en échec (Firestore indisponible, base...): toutes les lignes sont reprogrammées
+            log.warn("Outbox Firebase: lot de {} signalement(s) non envoyé: {}", claims.size(), e.getMessage());
+            failures = claims.stream().collect(Collectors.toMap(Claim::signalementId,
+                    claim -> String.valueOf(e.getMessage())));
+        }
+        for (Claim claim : claims) {
+            String error = failures.get(claim.signalementId());
+            if (error == null) {
+                outboxRepository.deleteSent(claim.signalementId(), claim.revision());
+            } else {
+                outboxRepository.markFailed(claim.signalementId(), claim.revision(),
+                        Instant.now().plusSeconds(backoffSeconds(claim.attempts())), error);
+            }
+        }
+        return failures.size();
+    }
+
+    // initial-backoff-seconds, puis doublé à chaque échec jusqu'à max-backoff-seconds
+    private long backoffSeconds(int attempts) {
+        long delay = initialBackoffSeconds << Math.min(attempts, 20);
+        return Math.min(delay, maxBackoffSeconds);
+    }
+}
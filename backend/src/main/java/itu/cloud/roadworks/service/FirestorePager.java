@@ -0,0 +1,56 @@
+package itu.cloud.roadworks.service;
+
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parcours d'une requête Firestore triée par pages (limit + startAfter).
+ * Une seule page est gardée en mémoire: la précédente est libérée dès que l'appelant passe à la suivante,
+ * la mémoire utilisée dépend de la taille de page et non de celle de la collection.
+ */
+public class FirestorePager {
+
+    private static final long PAGE_TIMEOUT_SECONDS = 30;
+
+    private final Query ordered;
+    private final int pageSize;
+    private Query next;
+    private boolean done;
+
+    /**
+     * @param ordered requête avec un tri total (terminé par FieldPath.documentId()), sans limite
+     */
+    public FirestorePager(Query ordered, int pageSize) {
+        this.ordered = ordered;
+        this.pageSize = pageSize;
+        this.next = ordered.limit(pageSize);
+    }
+
+    /**
+     * Commence le parcours aux valeurs de tri données (incluses).
+     */
+    public FirestorePager startAt(Object... fieldValues) {
+        this.next = ordered.startAt(fieldValues).limit(pageSize);
+        return this;
+    }
+
+    public boolean hasNext() {
+        return !done;
+    }
+
+    /**
+     * Lit la page suivante (30 secondes au plus). La dernière page est plus courte que pageSize, éventuellement vide.
+     */
+    public List<QueryDocumentSnapshot> next() throws Exception {
+        List<QueryDocumentSnapshot> documents = next.get().get(PAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS).getDocuments();
+        if (documents.size() < pageSize) {
+            done = true;
+        } else {
+            next = ordered.startAfter(documents.get(documents.size() - 1)).limit(pageSize);
+        }
+        return documents;
+    }
+}
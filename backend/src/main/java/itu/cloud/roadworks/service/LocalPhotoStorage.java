@@ -0,0 +1,129 @@
+package itu.cloud.roadworks.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage des photos sur le système de fichiers local.
+ * Arborescence: {@code <racine>/ab/cd/abcd...} (deux niveaux de répertoires issus du hash).
+ */
+@Service
+@Slf4j
+public class LocalPhotoStorage implements PhotoStorage {
+
+    // Hash SHA-256, éventuellement suivi d'un suffixe de variante ("<hash>_256")
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}(_[0-9a-z]+)?");
+
+    private final Path root;
+
+    public LocalPhotoStorage(@Value("${photo.storage.path:./data/photos}") String rootPath) throws IOException {
+        this.root = Paths.get(rootPath).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        log.info("Stockage des photos: {}", root);
+    }
+
+    @Override
+    public String store(byte[] data) throws IOException {
+        String hash = sha256(data);
+        write(hash, data);
+        return hash;
+    }
+
+    @Override
+    public String storeVariant(String hash, String variant, byte[] data) throws IOException {
+        String key = variantKey(hash, variant);
+        write(key, data);
+        return key;
+    }
+
+    @Override
+    public String variantKey(String hash, String variant) {
+        return hash + "_" + variant;
+    }
+
+    private void write(String key, byte[] data) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            return;
+        }
+
+        // Écriture dans un fichier temporaire puis renommage atomique: un lecteur ne voit jamais de fichier partiel
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Même contenu écrit en parallèle
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(resolve(hash));
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        return Files.size(resolve(hash));
+    }
+
+    @Override
+    public byte[] read(String hash) throws IOException {
+        return Files.readAllBytes(resolve(hash));
+    }
+
+    @Override
+    public void transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            long transferred = 0;
+            // transferTo peut copier moins que demandé: on boucle jusqu'au bout de la plage
+            while (transferred < count) {
+                long n = channel.transferTo(position + transferred, count - transferred, target);
+                if (n <= 0) {
+                    // Content-Length déjà annoncé: une réponse tronquée doit échouer, pas se terminer normalement
+                    throw new IOException("Contenu " + hash + " tronqué: " + transferred + " octet(s) sur " + count
+                            + " à partir de " + position);
+                }
+                transferred += n;
+            }
+        }
+    }
+
+    @Override
+    public Path localFile(String hash) {
+        return resolve(hash);
+    }
+
+    private Path resolve(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Clé de photo invalide: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.dto.SignalementPhotoRef;
+import itu.cloud.roadworks.dto.SignalementProblemDto;
+import itu.cloud.roadworks.model.Signalement;
+import itu.cloud.roadworks.model.SignalementPhoto;
+import itu.cloud.roadworks.repository.SignalementPhotoRepository;
+import itu.cloud.roadworks.repository.SignalementRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Accès aux photos des signalements: références légères pour les listes
+ * et contenu binaire pour l'endpoint dédié.
+ */
+@Service
+@RequiredArgsConstructor
+public class PhotoService {
+
+    private static final String DEFAULT_CONTENT_TYPE = "image/jpeg";
+
+    private final SignalementPhotoRepository photoRepository;
+    private final PhotoStorage photoStorage;
+    private final ThumbnailService thumbnailService;
+    private final SignalementRepository signalementRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Taille des miniatures référencées dans les listes (vues carte et liste)
+    @Value("${photo.thumbnail.preview-size:256}")
+    private int previewSize;
+
+    // Attente maximale d'une miniature manquante demandée; au-delà, l'original est servi
+    @Value("${photo.thumbnail.on-demand-wait-ms:2000}")
+    private long onDemandWaitMillis;
+
+    /**
+     * Contenu d'une photo: clé dans le stockage, octets Base64 hérités décodés, ou URL externe vers laquelle rediriger.
+     * provisional: original servi à la place d'une miniature pas encore disponible, à ne pas mettre en cache
+     */
+    public record PhotoContent(String contentHash, byte[] data, String contentType, long contentLength,
+                               String redirectUrl, boolean provisional) {
+    }
+
+    public static String photoUrl(Long signalementId, Long photoId) {
+        return "/api/signalements/" + signalementId + "/photos/" + photoId;
+    }
+
+    public static String photoUrl(Long signalementId, Long photoId, Integer size) {
+        return size == null ? photoUrl(signalementId, photoId) : photoUrl(signalementId, photoId) + "?size=" + size;
+    }
+
+    public List<SignalementProblemDto.PhotoRef> toPhotoRefs(List<SignalementPhotoRef> refs) {
+        if (refs == null) {
+            return List.of();
+        }
+        return refs.stream()
+                .map(ref -> SignalementProblemDto.PhotoRef.builder()
+                        .id(ref.getId())
+                        .url(photoUrl(ref.getSignalementId(), ref.getId()))
+                        .thumbnailUrl(photoUrl(ref.getSignalementId(), ref.getId(), previewSize))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public Map<Long, List<SignalementPhotoRef>> findRefsBySignalementIds(Collection<Long> signalementIds) {
+        if (signalementIds.isEmpty()) {
+            return Map.of();
+        }
+        return photoRepository.findRefsBySignalementIds(signalementIds).stream()
+                .collect(Collectors.groupingBy(SignalementPhotoRef::getSignalementId));
+    }
+
+    // Photos complètes de plusieurs signalements en une requête, par signalement et dans l'ordre d'affichage
+    public Map<Long, List<SignalementPhoto>> findBySignalementIds(Collection<Long> signalementIds) {
+        if (signalementIds.isEmpty()) {
+            return Map.of();
+        }
+        return photoRepository.findBySignalementIds(signalementIds).stream()
+                .collect(Collectors.groupingBy(photo -> photo.getSignalement().getId()));
+    }
+
+    public Map<Long, List<SignalementPhotoRef>> findAllRefsBySignalement() {
+        return photoRepository.findAllRefs().stream()
+                .collect(Collectors.groupingBy(SignalementPhotoRef::getSignalementId));
+    }
+
+    public List<SignalementPhotoRef> findRefs(Long signalementId) {
+        return photoRepository.findRefsBySignalementId(signalementId);
+    }
+
+    public Optional<SignalementPhotoRef> findRef(Long signalementId, Long photoId) {
+        return photoRepository.findRef(signalementId, photoId);
+    }
+
+    /**
+     * ETag d'une photo: une photo n'est jamais modifiée après sa création.
+     */
+    public String etag(SignalementPhotoRef ref, Integer size) {
+        long createdAt = ref.getCreatedAt() != null ? ref.getCreatedAt().toEpochMilli() : 0L;
+        String variant = thumbnailService.resolveSize(size) != null ? "-" + thumbnailService.resolveSize(size) : "";
+        return "\"photo-" + ref.getId() + "-" + createdAt + variant + "\"";
+    }
+
+    /**
+     * Contenu d'une photo, ou de sa miniature si une taille est demandée.
+     */
+    public PhotoContent loadContent(Long photoId, Integer size) throws Exception {
+        SignalementPhoto photo = photoRepository.findById(photoId)
+                .orElseThrow(() -> new Exception("Photo non trouvée"));
+
+        Integer thumbnailSize = thumbnailService.resolveSize(size);
+        if (photo.getContentHash() != null && thumbnailSize != null) {
+            String key = thumbnailService.thumbnailKey(photo.getContentHash(), thumbnailSize);
+            // Miniature pas encore générée (file pleine, photo migrée): générée sur le pool des miniatures,
+            // une seule fois pour toutes les tailles et requêtes simultanées; un format non décodable n'est pas retenté
+            if (photoStorage.exists(key)
+                    || thumbnailService.awaitGenerated(photo.getContentHash(), onDemandWaitMillis) && photoStorage.exists(key)) {
+                return new PhotoContent(key, null, ThumbnailService.CONTENT_TYPE, photoStorage.size(key), null, false);
+            }
+        }
+        // Un format non décodable n'aura jamais de miniature: l'original est alors la réponse définitive
+        boolean provisional = thumbnailSize != null
+                && (photo.getContentHash() == null || !thumbnailService.isUnsupported(photo.getContentHash()));
+
+        if (photo.getContentHash() != null) {
+            long length = photo.getContentLength() != null
+                    ? photo.getContentLength()
+                    : photoStorage.size(photo.getContentHash());
+            String contentType = photo.getContentType() != null ? photo.getContentType() : DEFAULT_CONTENT_TYPE;
+            return new PhotoContent(photo.getContentHash(), null, contentType, length, null, provisional);
+        }
+        if (isExternalUrl(photo.getPhotoData())) {
+            return new PhotoContent(null, null, null, 0, photo.getPhotoData().trim(), false);
+        }
+
+        // Ligne Base64 pas encore migrée vers le stockage
+        DecodedPhoto decoded = decode(photo.getPhotoData());
+        return new PhotoContent(null, decoded.data(), decoded.contentType(), decoded.data().length, null, provisional);
+    }
+
+    /**
+     * Fichier local d'un contenu du stockage, que le serveur peut envoyer par sendfile; null sinon
+     * (Base64 pas encore migré, stockage non local).
+     */
+    public Path localFile(PhotoContent content) {
+        return content.contentHash() != null ? photoStorage.localFile(content.contentHash()) : null;
+    }
+
+    /**
+     * Écrit la plage [position, position + count) du contenu, quand le serveur ne l'envoie pas par sendfile.
+     * La cible étant le flux de la servlet, FileChannel.transferTo ne fait pas de copie noyau ici:
+     * le JDK recopie par un tampon du tas.
+     */
+    public void writeContent(PhotoContent content, long position, long count, OutputStream out) throws IOException {
+        if (content.contentHash() != null) {
+            photoStorage.transferTo(content.contentHash(), position, count, Channels.newChannel(out));
+        } else {
+            out.write(content.data(), (int) position, (int) count);
+        }
+        out.flush();
+    }
+
+    /**
+     * Construit une photo à partir de la valeur reçue (data URL, Base64 ou URL externe):
+     * le contenu binaire est placé dans le stockage, seule l'URL externe reste en base.
+     */
+    public SignalementPhoto buildPhoto(Signalement signalement, String photoData, Integer photoOrder) throws IOException {
+        SignalementPhoto photo = SignalementPhoto.builder()
+                .signalement(signalement)
+                .photoOrder(photoOrder)
+                .build();
+        if (isExternalUrl(photoData)) {
+            photo.setPhotoData(photoData.trim());
+        } else {
+            storeContent(photo, decode(photoData));
+        }
+        return photo;
+    }
+
+    /**
+     * Ajoute une photo envoyée directement (upload) à un signalement, en dernière position.
+     */
+    public SignalementPhoto addPhoto(Long signalementId, byte[] data, String declaredContentType) throws Exception {
+        Signalement signalement = signalementRepository.findById(signalementId)
+                .orElseThrow(() -> new Exception("Signalement non trouvé avec l'ID: " + signalementId));
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Fichier vide");
+        }
+
+        String contentType = declaredContentType != null && declaredContentType.startsWith("image/")
+                ? declaredContentType
+                : sniffContentType(data);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Le fichier n'est pas une image (JPEG, PNG, GIF ou WebP)");
+        }
+
+        int photoOrder = photoRepository.findRefsBySignalementId(signalementId).stream()
+                .map(SignalementPhotoRef::getPhotoOrder)
+                .filter(order -> order != null)
+                .max(Integer::compare)
+                .orElse(0) + 1;
+
+        SignalementPhoto photo = SignalementPhoto.builder()
+                .signalement(signalement)
+                .photoOrder(photoOrder)
+                .build();
+        storeContent(photo, new DecodedPhoto(data, contentType));
+        SignalementPhoto saved = photoRepository.save(photo);
+        eventPublisher.publishEvent(new SignalementChangedEvent(signalementId));
+        return saved;
+    }
+
+    /**
+     * Transfère le Base64 hérité d'une photo vers le stockage.
+     * @return false si la photo n'a rien à migrer (déjà stockée ou URL externe)
+     */
+    public boolean migrateToStorage(SignalementPhoto photo) throws IOException {
+        if (photo.getContentHash() != null || photo.getPhotoData() == null || isExternalUrl(photo.getPhotoData())) {
+            return false;
+        }
+        storeContent(photo, decode(photo.getPhotoData()));
+        photo.setPhotoData(null);
+        return true;
+    }
+
+    /**
+     * Représentation data URL d'une photo, format attendu par l'application mobile dans Firestore.
+     */
+    public String toDataUrl(SignalementPhoto photo) throws IOException {
+        if (photo.getContentHash() == null) {
+            return photo.getPhotoData();
+        }
+        String contentType = photo.getContentType() != null ? photo.getContentType() : DEFAULT_CONTENT_TYPE;
+        return "data:" + contentType + ";base64,"
+                + Base64.getEncoder().encodeToString(photoStorage.read(photo.getContentHash()));
+    }
+
+    private void storeContent(SignalementPhoto photo, DecodedPhoto decoded) throws IOException {
+        photo.setContentHash(photoStorage.store(decoded.data()));
+        photo.setContentType(decoded.contentType());
+        photo.setContentLength((long) decoded.data().length);
+        // Le contenu étant adressé par hash, les miniatures peuvent être générées avant l'enregistrement de la ligne
+        thumbnailService.generateAsync(photo.getContentHash());
+    }
+
+    private boolean isExternalUrl(String photoData) {
+        String value = photoData == null ? "" : photoData.trim();
+        return value.startsWith("http://") || value.startsWith("https://");
+    }
+
+    private record DecodedPhoto(byte[] data, String contentType) {
+    }
+
+    /**
+     * Décode une photo reçue en data URL ("data:image/jpeg;base64,...") ou en Base64 brut.
+     */
+    private DecodedPhoto decode(String photoData) {
+        String value = photoData.trim();
+        String contentType = null;
+        if (value.startsWith("data:")) {
+            int comma = value.indexOf(',');
+            String header = value.substring("data:".length(), comma);
+            int semicolon = header.indexOf(';');
+            contentType = semicolon >= 0 ? header.substring(0, semicolon) : header;
+            value = value.substring(comma + 1);
+        }
+
+        byte[] data = Base64.getMimeDecoder().decode(value);
+        if (contentType == null || contentType.isEmpty()) {
+            String sniffed = sniffContentType(data);
+            contentType = sniffed != null ? sniffed : DEFAULT_CONTENT_TYPE;
+        }
+        return new DecodedPhoto(data, contentType);
+    }
+
+    // Type MIME déduit des premiers octets, null si le format n'est pas reconnu
+    private String sniffContentType(byte[] data) {
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8) {
+            return "image/jpeg";
+        }
+        if (data.length >= 8 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "image/png";
+        }
+        if (data.length >= 6 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F') {
+            return "image/gif";
+        }
+        if (data.length >= 12 && data[0] == 'R' && data[1] == 'I' && data[2] == 'F' && data[3] == 'F'
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package itu.cloud.roadworks.service;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Stockage binaire des photos, adressé par contenu: la clé d'une photo est le SHA-256 de ses octets,
+ * deux images identiques ne sont donc stockées qu'une fois.
+ */
+public interface PhotoStorage {
+
+    /**
+     * Enregistre le contenu s'il n'existe pas déjà et renvoie sa clé (SHA-256 hexadécimal).
+     */
+    String store(byte[] data) throws IOException;
+
+    /**
+     * Enregistre une variante dérivée d'un contenu (miniature), rangée à côté de l'original.
+     * @return la clé de la variante, utilisable avec {@link #exists}, {@link #size}, {@link #read} et {@link #transferTo}
+     */
+    String storeVariant(String hash, String variant, byte[] data) throws IOException;
+
+    /**
+     * Clé d'une variante d'un contenu, qu'elle existe ou non.
+     */
+    String variantKey(String hash, String variant);
+
+    boolean exists(String hash);
+
+    /**
+     * Taille en octets du contenu stocké.
+     */
+    long size(String hash) throws IOException;
+
+    byte[] read(String hash) throws IOException;
+
+    /**
+     * Copie {@code count} octets à partir de {@code position} vers le canal cible.
+     * @throws IOException si le contenu stocké compte moins d'octets que la plage demandée
+     */
+    void transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * Fichier local du contenu, que le serveur peut envoyer lui-même (sendfile), ou null si le stockage
+     * n'est pas un système de fichiers local.
+     */
+    Path localFile(String hash);
+}
@@ -0,0 +1,86 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.model.SignalementPhoto;
+import itu.cloud.roadworks.repository.SignalementPhotoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tâche de fond qui vide les anciennes colonnes photo_data (Base64) vers le PhotoStorage.
+ * Traite les photos par lots, une transaction par lot, jusqu'à ce qu'il n'en reste plus.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoStorageMigrationJob {
+
+    private final SignalementPhotoRepository photoRepository;
+    private final PhotoService photoService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${photo.storage.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${photo.storage.migration.batch-size:50}")
+    private int batchSize;
+
+    private record BatchResult(int read, int migrated, long lastId) {
+    }
+
+    @Scheduled(initialDelayString = "${photo.storage.migration.initial-delay-ms:30000}",
+            fixedDelayString = "${photo.storage.migration.delay-ms:600000}")
+    public void migrate() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long afterId = 0;
+            int total = 0;
+            while (true) {
+                long from = afterId;
+                BatchResult result = transactionTemplate.execute(status -> migrateBatch(from));
+                if (result == null || result.read() == 0) {
+                    break;
+                }
+                total += result.migrated();
+                afterId = result.lastId();
+            }
+            if (total > 0) {
+                log.info("Migration des photos vers le stockage: {} photo(s) migrée(s)", total);
+            }
+        } catch (Exception e) {
+            log.error("Erreur lors de la migration des photos vers le stockage: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private BatchResult migrateBatch(long afterId) {
+        List<SignalementPhoto> photos = photoRepository.findLegacyBatch(afterId, PageRequest.of(0, batchSize));
+        int migrated = 0;
+        long lastId = afterId;
+        for (SignalementPhoto photo : photos) {
+            lastId = photo.getId();
+            try {
+                if (photoService.migrateToStorage(photo)) {
+                    migrated++;
+                }
+            } catch (Exception e) {
+                // Contenu illisible: la ligne reste en Base64 et sera réessayée au prochain passage
+                log.warn("Photo {} non migrée: {}", photo.getId(), e.getMessage());
+            }
+        }
+        // Les entités modifiées sont écrites au commit du lot
+        return new BatchResult(photos.size(), migrated, lastId);
+    }
+}
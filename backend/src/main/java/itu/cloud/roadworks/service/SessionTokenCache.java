@@ -0,0 +1,116 @@
+package itu.cloud.roadworks.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import itu.cloud.roadworks.model.Account;
+import itu.cloud.roadworks.model.Session;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache borné des sessions valides, par empreinte SHA-256 du token: une requête authentifiée ne lit la table
+ * session qu'au premier passage du token. Une entrée expire à l'expiration de la session, et au plus tard
+ * après max-ttl-seconds (changements de compte faits hors de cette application).
+ * Les révocations (déconnexion, compte bloqué) sont envoyées aux autres instances par NOTIFY sur le canal
+ * session_evict (voir DatabaseNotifications).
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionTokenCache {
+
+    static final String CHANNEL = "session_evict";
+
+    private final DatabaseNotifications notifications;
+
+    @Value("${auth.token-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${auth.token-cache.max-ttl-seconds:300}")
+    private long maxTtlSeconds;
+
+    private record CachedSession(Account account, Instant expiresAt) {
+    }
+
+    private Cache<String, CachedSession> sessions;
+
+    @PostConstruct
+    public void start() {
+        long maxTtlNanos = Duration.ofSeconds(maxTtlSeconds).toNanos();
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedSession>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedSession value, long currentTime) {
+                        long untilExpiry = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+                        return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedSession value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedSession value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        // Des révocations ont pu être manquées avant la (re)connexion
+        notifications.subscribe(CHANNEL, sessions::invalidate, sessions::invalidateAll);
+    }
+
+    /**
+     * Compte de la session associée au token; le chargeur n'est appelé qu'en l'absence d'entrée en cache
+     * (un seul appel pour des requêtes simultanées avec le même token). Un token inconnu n'est pas mis en cache.
+     */
+    public Optional<Account> get(String token, Supplier<Optional<Session>> loader) {
+        // Sans écoute, une révocation faite par une autre instance ne serait pas vue: le cache n'est pas utilisé
+        if (!notifications.isListening()) {
+            return loader.get().map(Session::getAccount);
+        }
+        CachedSession cached = sessions.get(key(token), key -> loader.get()
+                .map(session -> new CachedSession(session.getAccount(), session.getExpiresAt()))
+                .orElse(null));
+        if (cached == null || !cached.expiresAt().isAfter(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.account());
+    }
+
+    /**
+     * Retire les tokens du cache local et publie leur révocation. Appelé dans une transaction, le NOTIFY
+     * n'est délivré qu'à sa validation: les instances (celle-ci comprise) purgent alors une entrée
+     * qu'une lecture concurrente aurait remise en cache avant la suppression de la session.
+     */
+    public void evict(Collection<String> tokens) {
+        for (String token : tokens) {
+            String key = key(token);
+            sessions.invalidate(key);
+            notifications.publish(CHANNEL, key);
+        }
+    }
+
+    private static String key(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
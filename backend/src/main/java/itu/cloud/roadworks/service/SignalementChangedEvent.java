@@ -0,0 +1,8 @@
+package itu.cloud.roadworks.service;
+
+/**
+ * Publié après toute écriture qui modifie la vue d'un signalement (création, statut, travail, photo).
+ * Si une transaction est active, les abonnés s'exécutent autour de son commit.
+ */
+public record SignalementChangedEvent(Long signalementId) {
+}
@@ -0,0 +1,173 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.dto.SignalementClusterDto;
+import itu.cloud.roadworks.dto.SignalementMarkerDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grille hiérarchique de groupes (clusters) de signalements actifs, un niveau par zoom de carte.
+ * Au zoom z, une cellule est une tuile Web Mercator de niveau z + 2 (64 px pour des tuiles de 256 px):
+ * le nombre de cellules d'une vue ne dépend que de la taille de l'écran, pas du volume de signalements.
+ * Chaque ajout ou retrait met à jour une cellule par niveau; les cellules sont immuables et remplacées.
+ * Un rechargement construit une nouvelle grille et la substitue d'un coup: une lecture voit l'ancienne
+ * ou la nouvelle, jamais une grille partielle.
+ * Alimentée par {@link SignalementSpatialIndex}, qui sérialise les écritures.
+ */
+@Component
+public class SignalementClusterIndex {
+
+    private static final double MAX_LATITUDE = 85.05112878;
+    private static final int CELL_SUBDIVISION = 2;
+    private static final String UNKNOWN = "inconnu";
+
+    private final int maxZoom;
+    private volatile List<Map<Long, Cell>> levels;
+
+    public SignalementClusterIndex(@Value("${signalement.cluster.max-zoom:18}") int maxZoom) {
+        this.maxZoom = maxZoom;
+        this.levels = emptyLevels();
+    }
+
+    /**
+     * Agrégats d'une cellule. Les sommes (coordonnées, identifiants) restent exactes après un retrait:
+     * barycentre = somme / nombre, et pour une cellule à un seul signalement, son id = somme des ids.
+     */
+    private record Cell(long count, double sumLat, double sumLng, long sumIds,
+                        Map<String, Long> byType, Map<String, Long> byStatus) {
+
+        Cell plus(SignalementMarkerDto marker, int sign) {
+            Map<String, Long> types = new HashMap<>(byType);
+            Map<String, Long> statuses = new HashMap<>(byStatus);
+            types.merge(label(marker.getTypeProblem()), (long) sign, Long::sum);
+            statuses.merge(label(marker.getEtat()), (long) sign, Long::sum);
+            types.values().removeIf(value -> value <= 0);
+            statuses.values().removeIf(value -> value <= 0);
+            return new Cell(count + sign,
+                    sumLat + sign * marker.getLatitude(),
+                    sumLng + sign * marker.getLongitude(),
+                    sumIds + sign * marker.getId(),
+                    Map.copyOf(types), Map.copyOf(statuses));
+        }
+    }
+
+    public void add(SignalementMarkerDto marker) {
+        update(levels, marker, 1);
+    }
+
+    public void remove(SignalementMarkerDto marker) {
+        update(levels, marker, -1);
+    }
+
+    /**
+     * Remplace tout le contenu de la grille par les signalements donnés.
+     */
+    public void replaceAll(Collection<SignalementMarkerDto> markers) {
+        List<Map<Long, Cell>> rebuilt = emptyLevels();
+        for (SignalementMarkerDto marker : markers) {
+            update(rebuilt, marker, 1);
+        }
+        levels = rebuilt;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Groupes des cellules qui recouvrent la zone au niveau de zoom demandé.
+     */
+    public List<SignalementClusterDto> query(SignalementSpatialIndex.BoundingBox box, int zoom) {
+        int level = Math.max(0, Math.min(zoom, maxZoom));
+        Map<Long, Cell> cells = levels.get(level);
+        int precision = level + CELL_SUBDIVISION;
+
+        long minX = tileX(box.minLng(), precision);
+        long maxX = tileX(box.maxLng(), precision);
+        // L'axe Y des tuiles est orienté vers le sud
+        long minY = tileY(box.maxLat(), precision);
+        long maxY = tileY(box.minLat(), precision);
+
+        List<SignalementClusterDto> result = new ArrayList<>();
+        if ((maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+            cells.forEach((key, cell) -> {
+                long x = key >>> 32;
+                long y = key & 0xFFFFFFFFL;
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    result.add(toDto(cell));
+                }
+            });
+            return result;
+        }
+
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                Cell cell = cells.get(key(x, y));
+                if (cell != null) {
+                    result.add(toDto(cell));
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Map<Long, Cell>> emptyLevels() {
+        List<Map<Long, Cell>> empty = new ArrayList<>(maxZoom + 1);
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            empty.add(new ConcurrentHashMap<>());
+        }
+        return empty;
+    }
+
+    private void update(List<Map<Long, Cell>> target, SignalementMarkerDto marker, int sign) {
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            int precision = zoom + CELL_SUBDIVISION;
+            long key = key(tileX(marker.getLongitude(), precision), tileY(marker.getLatitude(), precision));
+            target.get(zoom).compute(key, (k, cell) -> {
+                Cell base = cell != null ? cell : new Cell(0, 0, 0, 0, Map.of(), Map.of());
+                Cell next = base.plus(marker, sign);
+                return next.count() > 0 ? next : null;
+            });
+        }
+    }
+
+    private SignalementClusterDto toDto(Cell cell) {
+        return SignalementClusterDto.builder()
+                .count(cell.count())
+                .latitude(cell.sumLat() / cell.count())
+                .longitude(cell.sumLng() / cell.count())
+                .signalementId(cell.count() == 1 ? cell.sumIds() : null)
+                .byType(cell.byType())
+                .byStatus(cell.byStatus())
+                .build();
+    }
+
+    private static String label(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+
+    private static long tileX(double lng, int precision) {
+        double n = 1L << precision;
+        long x = (long) Math.floor((lng + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min((long) n - 1, x));
+    }
+
+    private static long tileY(double lat, int precision) {
+        double n = 1L << precision;
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double rad = Math.toRadians(clamped);
+        long y = (long) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * n);
+        return Math.max(0, Math.min((long) n - 1, y));
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | y;
+    }
+}
@@ -0,0 +1,190 @@
+package itu.cloud.roadworks.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import itu.cloud.roadworks.model.SignalementReadModel;
+import itu.cloud.roadworks.repository.SignalementReadModelRepository;
+import itu.cloud.roadworks.repository.StatusSignalementRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export en flux de tous les signalements (NDJSON ou CSV), lus dans le modèle de lecture
+ * par un curseur côté serveur: la mémoire utilisée ne dépend pas du nombre de lignes exportées.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private static final String CSV_HEADER = "id,type_problem,etat,date_problem,location,latitude,longitude,"
+            + "surface_m2,budget,company_id,company_name,photo_count,description";
+
+    private final SignalementReadModelRepository readModelRepository;
+    private final StatusSignalementRepository statusSignalementRepository;
+    private final SignalementService signalementService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Format d'export invalide: " + value + " (ndjson ou csv)");
+            }
+        }
+    }
+
+    /**
+     * Filtres de l'export, validés avant d'ouvrir le flux (une erreur donne encore un 400).
+     */
+    public record Filter(long afterId, Long statusId, String typeProblem, SignalementSpatialIndex.BoundingBox box) {
+    }
+
+    public Filter resolveFilter(String statusName, String typeProblem, String bbox, Long afterId) {
+        Long statusId = null;
+        if (statusName != null && !statusName.isBlank()) {
+            statusId = statusSignalementRepository.findByLibelle(statusName)
+                    .orElseThrow(() -> new IllegalArgumentException("Statut invalide: " + statusName))
+                    .getId();
+        }
+        return new Filter(
+                afterId != null ? afterId : 0L,
+                statusId,
+                typeProblem != null && !typeProblem.isBlank() ? typeProblem : null,
+                bbox != null && !bbox.isBlank() ? SignalementSpatialIndex.BoundingBox.parse(bbox) : null);
+    }
+
+    /**
+     * Écrit les signalements filtrés par id croissant. Chaque ligne est détachée du contexte de persistance
+     * une fois écrite; le flux est vidé régulièrement pour que le client reçoive les données au fil de l'eau.
+     * Pour reprendre un export interrompu: afterId = dernier id reçu.
+     */
+    public void export(Filter filter, Format format, OutputStream out) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long start = System.currentTimeMillis();
+        long count = readOnly.execute(tx -> {
+            SignalementSpatialIndex.BoundingBox box = filter.box();
+            try (Stream<SignalementReadModel> rows = readModelRepository.streamForExport(filter.afterId(),
+                    filter.statusId(), filter.typeProblem(),
+                    box != null ? box.minLat() : null, box != null ? box.minLng() : null,
+                    box != null ? box.maxLat() : null, box != null ? box.maxLng() : null)) {
+                return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Export {}: {} signalement(s) en {} ms", format.getExtension(), count, System.currentTimeMillis() - start);
+    }
+
+    private long writeNdjson(Iterator<SignalementReadModel> rows, OutputStream out) throws IOException {
+        long count = 0;
+        // Une valeur JSON par ligne; vidage explicite par paquets, et le flux HTTP reste ouvert à la fermeture
+        try (SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(out)) {
+            while (rows.hasNext()) {
+                SignalementReadModel row = rows.next();
+                writer.write(signalementService.toProblemDto(row, null));
+                entityManager.detach(row);
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            if (count > 0) {
+                out.write('\n');
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<SignalementReadModel> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            SignalementReadModel row = rows.next();
+            writer.write(String.join(",",
+                    csv(row.getSignalementId()),
+                    csv(row.getTypeProblem()),
+                    csv(row.getEtat()),
+                    csv(row.getDateProblem()),
+                    csv(row.getLocation()),
+                    csv(row.getLatitude()),
+                    csv(row.getLongitude()),
+                    csv(row.getSurfaceM2()),
+                    csv(row.getBudget()),
+                    csv(row.getCompanyId()),
+                    csv(row.getCompanyName()),
+                    csv(row.getPhotoCount()),
+                    csv(row.getDescription())));
+            writer.write('\n');
+            entityManager.detach(row);
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180: champ entre guillemets s'il contient une virgule, un guillemet ou un retour à la ligne
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,79 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.repository.SignalementReadModelRepository;
+import itu.cloud.roadworks.repository.SignalementRepository;
+import itu.cloud.roadworks.repository.SignalementTombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintient la table signalement_read_model: une ligne recalculée à chaque changement d'un signalement.
+ * La mise à jour a lieu juste avant le commit, dans la transaction de l'écriture: la ligne
+ * et ses sources sont validées ensemble. Chaque ligne modifiée (ou signalement supprimé) reçoit
+ * une version de changement, servie par le flux GET /api/signalements/changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementReadModelProjector {
+
+    private final SignalementReadModelRepository repository;
+    private final SignalementRepository signalementRepository;
+    private final SignalementTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        Long signalementId = event.signalementId();
+        // Transaction de l'écriture si elle existe, sinon une transaction dédiée
+        transactionTemplate.executeWithoutResult(tx -> {
+            repository.lockChangeVersions();
+            // 0 ligne écrite: signalement inchangé ou supprimé (sa ligne part alors en cascade)
+            if (repository.refresh(signalementId) == 0 && !signalementRepository.existsById(signalementId)) {
+                tombstoneRepository.record(signalementId);
+            }
+        });
+    }
+
+    /**
+     * Recalcule les lignes qui affichent le nom de l'entreprise (après sa modification).
+     */
+    public void refreshCompany(Long companyId) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            repository.lockChangeVersions();
+            repository.refreshByCompany(companyId);
+        });
+    }
+
+    /**
+     * Recalcule toutes les lignes depuis les tables sources.
+     * @return le nombre de lignes modifiées (les lignes déjà à jour gardent leur version)
+     */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        int count = transactionTemplate.execute(tx -> {
+            repository.lockChangeVersions();
+            return repository.rebuildAll();
+        });
+        log.info("Modèle de lecture reconstruit: {} ligne(s) modifiée(s) en {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    // Avant le chargement de l'index spatial, qui lit cette table
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (repository.count() == 0) {
+            rebuild();
+        }
+    }
+}
@@ -1,34 +1,75 @@
 package itu.cloud.roadworks.service;
 
+import itu.cloud.roadworks.dto.SignalementChangesDto;
+import itu.cloud.roadworks.dto.SignalementClusterDto;
+import itu.cloud.roadworks.dto.SignalementMarkerDto;
+import itu.cloud.roadworks.dto.SignalementPageDto;
 import itu.cloud.roadworks.dto.SignalementPhotoDto;
+import itu.cloud.roadworks.dto.SignalementPhotoRef;
 import itu.cloud.roadworks.dto.SignalementProblemDto;
+import itu.cloud.roadworks.dto.SignalementSearchHit;
 import itu.cloud.roadworks.model.Signalement;
 import itu.cloud.roadworks.model.SignalementPhoto;
+import itu.cloud.roadworks.model.SignalementReadModel;
 import itu.cloud.roadworks.model.SignalementStatus;
+import itu.cloud.roadworks.model.SignalementTombstone;
 import itu.cloud.roadworks.model.SignalementWork;
+import itu.cloud.roadworks.model.StatusSignalement;
+import itu.cloud.roadworks.model.SyncWatermark;
 import itu.cloud.roadworks.model.TypeProblem;
 import itu.cloud.roadworks.model.Account;
 import itu.cloud.roadworks.model.Company;
+import itu.cloud.roadworks.repository.FirebaseOutboxRepository;
 import itu.cloud.roadworks.repository.SignalementRepository;
 import itu.cloud.roadworks.repository.SignalementPhotoRepository;
+import itu.cloud.roadworks.repository.SignalementReadModelRepository;
 import itu.cloud.roadworks.repository.SignalementStatusRepository;
+import itu.cloud.roadworks.repository.SignalementTombstoneRepository;
 import itu.cloud.roadworks.repository.StatusSignalementRepository;
+import itu.cloud.roadworks.repository.SyncWatermarkRepository;
 import itu.cloud.roadworks.repository.TypeProblemRepository;
 import itu.cloud.roadworks.repository.AccountRepository;
 import itu.cloud.roadworks.repository.SignalementWorkRepository;
 import itu.cloud.roadworks.repository.CompanyRepository;
+import itu.cloud.roadworks.config.CacheConfig;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.QuerySnapshot;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteResult;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -44,47 +85,338 @@ public class SignalementService {
     private final CompanyRepository companyRepository;
     private final FirebaseService firebaseService;
     private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final PhotoService photoService;
+    private final SignalementSpatialIndex spatialIndex;
+    private final SignalementClusterIndex clusterIndex;
+    private final SignalementReadModelRepository readModelRepository;
+    private final SignalementReadModelProjector readModelProjector;
+    private final SignalementTombstoneRepository tombstoneRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncWatermarkRepository syncWatermarkRepository;
+    private final FirebaseOutboxRepository firebaseOutboxRepository;
+    private final CacheManager cacheManager;
+
+    // Curseur de l'import incrémental de la collection roadworks_reports
+    private static final String FIRESTORE_WATERMARK = "firestore:roadworks_reports";
+    // Taille maximale d'une liste IN de recherche des firebase_id existants
+    private static final int FIREBASE_ID_CHUNK = 1000;
+    // Signalements préparés et écrits ensemble vers Firestore
+    private static final int FIREBASE_PUSH_CHUNK = 500;
+
+    @Value("${signalement.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${signalement.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${firebase.sync.batch-size:200}")
+    private int syncBatchSize;
+
+    @Value("${firebase.sync.overlap-seconds:60}")
+    private long syncOverlapSeconds;
+
+    @Value("${firebase.sync.pipeline.parse-threads:4}")
+    private int syncParseThreads;
+
+    @Value("${firebase.sync.pipeline.write-threads:2}")
+    private int syncWriteThreads;
+
+    @Value("${firebase.sync.pipeline.queue-capacity:2}")
+    private int syncQueueCapacity;
+
+    private volatile FirebaseImportPipeline.Stats lastImportStats;
+
+    /**
+     * Signalements actifs dans une zone, servis par l'index spatial en mémoire.
+     */
+    public List<SignalementMarkerDto> findMarkersInBox(String bbox) {
+        return spatialIndex.query(SignalementSpatialIndex.BoundingBox.parse(bbox));
+    }
+
+    /**
+     * Groupes de signalements actifs d'une zone pour un niveau de zoom, lus dans la grille hiérarchique.
+     */
+    public List<SignalementClusterDto> findClusters(String bbox, int zoom) {
+        if (zoom < 0) {
+            throw new IllegalArgumentException("zoom invalide: " + zoom);
+        }
+        return clusterIndex.query(SignalementSpatialIndex.BoundingBox.parse(bbox), zoom);
+    }
 
+    /**
+     * Tous les signalements, lus dans le modèle de lecture (une ligne par signalement, sans jointure).
+     */
     public List<SignalementProblemDto> findAllProblems() {
-        return repository.findAll()
+        // Références des photos chargées en une requête, sans leur contenu
+        Map<Long, List<SignalementPhotoRef>> photosBySignalement = photoService.findAllRefsBySignalement();
+        return readModelRepository.findAll()
                 .stream()
-                .map(this::toProblemDto)
+                .map(row -> toProblemDto(row, photosBySignalement.get(row.getSignalementId())))
                 .collect(Collectors.toList());
     }
 
-    private SignalementProblemDto toProblemDto(Signalement signalement) {
-        SignalementStatus latestStatus = signalement.getStatuses().stream().findFirst().orElse(null);
-        SignalementWork latestWork = signalement.getWorks().stream().findFirst().orElse(null);
+    /**
+     * Détail d'un signalement avec les références de ses photos.
+     */
+    public SignalementProblemDto findProblemById(Long id) throws Exception {
+        SignalementReadModel row = readModelRepository.findById(id)
+                .orElseThrow(() -> new Exception("Signalement non trouvé avec l'ID: " + id));
+        return toProblemDto(row, photoService.findRefs(id));
+    }
 
-        SignalementProblemDto.SignalementProblemDetail detail = SignalementProblemDto.SignalementProblemDetail.builder()
-                .etat(Optional.ofNullable(latestStatus).map(s -> s.getStatusSignalement().getLibelle()).orElse(null))
-                .dateProblem(signalement.getCreatedAt())
-                .surfaceM2(signalement.getSurface())
-                .budget(latestWork != null ? latestWork.getPrice() : null)
-                .entrepriseAssign(Optional.ofNullable(latestWork)
-                        .map(work -> SignalementProblemDto.CompanyDto.builder()
-                                .id(work.getCompany().getId())
-                                .name(work.getCompany().getName())
-                                .build())
-                        .orElse(null))
-                .description(signalement.getDescriptions())
+    /**
+     * Version de changement la plus récente (modification ou suppression): identifie l'état de la liste
+     * des signalements, pour les ETag. Deux lectures de MAX sur index.
+     */
+    public long currentChangeVersion() {
+        return Math.max(readModelRepository.findMaxChangeVersion(), tombstoneRepository.findMaxChangeVersion());
+    }
+
+    /**
+     * Signalements modifiés ou supprimés après la version {@code since}, par version croissante.
+     * Lu dans un seul instantané (REPEATABLE READ) pour que modifications et suppressions soient cohérentes
+     * avec la version renvoyée.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SignalementChangesDto findChanges(long since, Integer limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Version invalide: " + since);
+        }
+        int pageSize = resolvePageSize(limit);
+
+        List<SignalementReadModel> rows = readModelRepository.findChangedSince(since, pageSize + 1);
+        List<SignalementTombstone> tombstones = tombstoneRepository.findChangedSince(since, pageSize + 1);
+
+        // Fusion des deux listes triées par version, limitée à la taille de page
+        List<SignalementReadModel> upserted = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long version = since;
+        int r = 0;
+        int t = 0;
+        while (upserted.size() + deleted.size() < pageSize && (r < rows.size() || t < tombstones.size())) {
+            boolean takeRow = t >= tombstones.size()
+                    || (r < rows.size() && rows.get(r).getChangeVersion() < tombstones.get(t).getChangeVersion());
+            if (takeRow) {
+                SignalementReadModel row = rows.get(r++);
+                upserted.add(row);
+                version = row.getChangeVersion();
+            } else {
+                SignalementTombstone tombstone = tombstones.get(t++);
+                deleted.add(tombstone.getSignalementId());
+                version = tombstone.getChangeVersion();
+            }
+        }
+
+        Map<Long, List<SignalementPhotoRef>> photosBySignalement = photoService.findRefsBySignalementIds(
+                upserted.stream().map(SignalementReadModel::getSignalementId).toList());
+
+        return SignalementChangesDto.builder()
+                .version(version)
+                .upserted(upserted.stream()
+                        .map(row -> toProblemDto(row, photosBySignalement.get(row.getSignalementId())))
+                        .collect(Collectors.toList()))
+                .deleted(deleted)
+                .hasMore(r < rows.size() || t < tombstones.size())
+                .build();
+    }
+
+    /**
+     * Recalcule tout le modèle de lecture puis recharge l'index spatial qui en dépend.
+     */
+    public int rebuildReadModel() {
+        int count = readModelProjector.rebuild();
+        spatialIndex.reload();
+        return count;
+    }
+
+    /**
+     * Liste paginée par curseur (keyset sur created_at, id), du plus récent au plus ancien.
+     * Une requête pour les lignes et une pour les photos de la page, quel que soit le volume de la table.
+     */
+    public SignalementPageDto findProblemsPage(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+
+        // On lit une ligne de plus pour savoir s'il existe une page suivante
+        List<SignalementReadModel> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = readModelRepository.findFirstPage(pageSize + 1);
+        } else {
+            PageCursor position = decodeCursor(cursor);
+            rows = readModelRepository.findPageAfter(position.createdAt(), position.id(), pageSize + 1);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    /**
+     * Signalements dont le statut courant est {@code statusName}, paginés par curseur comme {@link #findProblemsPage}.
+     */
+    public SignalementPageDto findProblemsByStatusPage(String statusName, String cursor, Integer size) {
+        StatusSignalement status = statusSignalementRepository.findByLibelle(statusName)
+                .orElseThrow(() -> new IllegalArgumentException("Statut invalide: " + statusName));
+        int pageSize = resolvePageSize(size);
+
+        List<SignalementReadModel> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = readModelRepository.findByStatusFirstPage(status.getId(), pageSize + 1);
+        } else {
+            PageCursor position = decodeCursor(cursor);
+            rows = readModelRepository.findByStatusPageAfter(status.getId(), position.createdAt(), position.id(), pageSize + 1);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    /**
+     * Recherche plein texte dans les descriptions (stemming français), du plus pertinent au moins pertinent.
+     * Filtres optionnels: type de problème, statut courant, zone (bbox). Pagination par curseur sur (score, id).
+     */
+    public SignalementPageDto searchProblems(String query, String typeProblem, String statusName, String bbox,
+                                             String cursor, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Le paramètre 'q' est obligatoire");
+        }
+        Long statusId = null;
+        if (statusName != null && !statusName.isBlank()) {
+            statusId = statusSignalementRepository.findByLibelle(statusName)
+                    .orElseThrow(() -> new IllegalArgumentException("Statut invalide: " + statusName))
+                    .getId();
+        }
+        SignalementSpatialIndex.BoundingBox box = bbox != null && !bbox.isBlank()
+                ? SignalementSpatialIndex.BoundingBox.parse(bbox)
+                : null;
+        String type = typeProblem != null && !typeProblem.isBlank() ? typeProblem : null;
+        int pageSize = resolvePageSize(size);
+
+        List<SignalementSearchHit> hits;
+        if (cursor == null || cursor.isBlank()) {
+            hits = repository.searchFirstPage(query, type, statusId,
+                    box != null ? box.minLat() : null, box != null ? box.minLng() : null,
+                    box != null ? box.maxLat() : null, box != null ? box.maxLng() : null,
+                    pageSize + 1);
+        } else {
+            SearchCursor position = decodeSearchCursor(cursor);
+            hits = repository.searchAfter(query, type, statusId,
+                    box != null ? box.minLat() : null, box != null ? box.minLng() : null,
+                    box != null ? box.maxLat() : null, box != null ? box.maxLng() : null,
+                    position.rank(), position.id(), pageSize + 1);
+        }
+
+        boolean hasMore = hits.size() > pageSize;
+        if (hasMore) {
+            hits = hits.subList(0, pageSize);
+        }
+        List<Long> ids = hits.stream().map(SignalementSearchHit::getId).toList();
+
+        // Lignes et photos de la page chargées par identifiants, remises dans l'ordre du score
+        Map<Long, SignalementReadModel> rows = readModelRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(SignalementReadModel::getSignalementId, row -> row));
+        Map<Long, List<SignalementPhotoRef>> photosBySignalement = photoService.findRefsBySignalementIds(ids);
+
+        List<SignalementProblemDto> items = ids.stream()
+                .map(rows::get)
+                .filter(row -> row != null)
+                .map(row -> toProblemDto(row, photosBySignalement.get(row.getSignalementId())))
+                .collect(Collectors.toList());
+
+        SignalementSearchHit last = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+        return SignalementPageDto.builder()
+                .items(items)
+                .size(pageSize)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeSearchCursor(last.getRank(), last.getId()) : null)
                 .build();
+    }
+
+    private int resolvePageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private SignalementPageDto toPage(List<SignalementReadModel> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
 
-        // Récupérer les photos du signalement
-        List<String> photosList = signalement.getPhotos().stream()
-                .map(SignalementPhoto::getPhotoData)
+        Map<Long, List<SignalementPhotoRef>> photosBySignalement = photoService.findRefsBySignalementIds(
+                rows.stream().map(SignalementReadModel::getSignalementId).toList());
+
+        List<SignalementProblemDto> items = rows.stream()
+                .map(row -> toProblemDto(row, photosBySignalement.get(row.getSignalementId())))
                 .collect(Collectors.toList());
 
+        SignalementReadModel last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        return SignalementPageDto.builder()
+                .items(items)
+                .size(pageSize)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeCursor(last.getDateProblem(), last.getSignalementId()) : null)
+                .build();
+    }
+
+    // Aussi utilisé par SignalementExportService (sans références de photos)
+    SignalementProblemDto toProblemDto(SignalementReadModel row, List<SignalementPhotoRef> photos) {
+        SignalementProblemDto.SignalementProblemDetail detail = SignalementProblemDto.SignalementProblemDetail.builder()
+                .etat(row.getEtat())
+                .dateProblem(row.getDateProblem())
+                .surfaceM2(row.getSurfaceM2())
+                .budget(row.getBudget())
+                .entrepriseAssign(row.getCompanyId() != null
+                        ? SignalementProblemDto.CompanyDto.builder()
+                                .id(row.getCompanyId())
+                                .name(row.getCompanyName())
+                                .build()
+                        : null)
+                .description(row.getDescription())
+                .build();
+
         return SignalementProblemDto.builder()
-                .id(signalement.getId())
-                .typeProblem(signalement.getTypeProblem().getLibelle())
-                .illustrationProblem(signalement.getTypeProblem().getIcone())
-                .location(signalement.getLocation())
+                .id(row.getSignalementId())
+                .typeProblem(row.getTypeProblem())
+                .illustrationProblem(row.getIllustrationProblem())
+                .location(row.getLocation())
                 .detail(detail)
-                .photos(photosList.isEmpty() ? null : photosList)
+                .photoCount(row.getPhotoCount())
+                .photos(photos == null || photos.isEmpty() ? null : photoService.toPhotoRefs(photos))
                 .build();
     }
 
+    private record PageCursor(Instant createdAt, Long id) {
+    }
+
+    private record SearchCursor(float rank, Long id) {
+    }
+
+    private String encodeSearchCursor(float rank, Long id) {
+        String raw = Float.toString(rank) + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SearchCursor decodeSearchCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new SearchCursor(Float.parseFloat(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + cursor);
+        }
+    }
+
+    private String encodeCursor(Instant createdAt, Long id) {
+        String raw = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PageCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new PageCursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + cursor);
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
     public void updateStatus(Long signalementId, String statusName, String realEndDate) throws Exception {
         Signalement signalement = repository.findById(signalementId)
                 .orElseThrow(() -> new Exception("Signalement non trouvé"));
@@ -92,13 +424,7 @@ public class SignalementService {
         var statusSignalement = statusSignalementRepository.findByLibelle(statusName)
                 .orElseThrow(() -> new Exception("Statut invalide: " + statusName));
 
-        SignalementStatus newStatus = SignalementStatus.builder()
-                .signalement(signalement)
-                .statusSignalement(statusSignalement)
-                .updatedAt(Instant.now())
-                .build();
-
-        statusRepository.save(newStatus);
+        recordStatus(signalement, statusSignalement);
 
         // Si le statut est "terminé" et une date est fournie, mettre à jour la date réelle de fin du travail
         if ("terminé".equals(statusName) && realEndDate != null && !realEndDate.trim().isEmpty()) {
@@ -113,343 +439,630 @@ public class SignalementService {
             }
         }
 
+        // Modèle de lecture et index spatial mis à jour au commit
+        eventPublisher.publishEvent(new SignalementChangedEvent(signalementId));
+        enqueueFirebasePush(signalement);
+
         // Notification WebSocket
         notificationService.notifyStatusUpdated(signalement, statusName);
-
-        // Note: La synchronisation vers Firebase se fait manuellement via le bouton "Sync Statuts"
-        // pour éviter d'envoyer les statuts avant que l'utilisateur ne le souhaite
     }
 
     // Méthode surchargée pour la rétro-compatibilité
+    @Transactional(rollbackFor = Exception.class)
     public void updateStatus(Long signalementId, String statusName) throws Exception {
         updateStatus(signalementId, statusName, null);
     }
 
+    /**
+     * Ajoute une entrée à l'historique des statuts et met à jour le statut courant dénormalisé
+     * du signalement, dans une même transaction (celle de l'appelant s'il y en a une).
+     */
+    private void recordStatus(Signalement signalement, StatusSignalement statusSignalement) {
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(tx -> {
+            statusRepository.save(SignalementStatus.builder()
+                    .signalement(signalement)
+                    .statusSignalement(statusSignalement)
+                    .updatedAt(now)
+                    .build());
+            signalement.setCurrentStatus(statusSignalement);
+            signalement.setCurrentStatusAt(now);
+            repository.save(signalement);
+        });
+    }
+
+    /**
+     * Met le signalement en attente d'envoi vers Firestore, dans la transaction de la modification:
+     * l'envoi n'a lieu que si la modification est validée. Un signalement local (sans firebaseId)
+     * reste envoyé par l'export manuel.
+     */
+    private void enqueueFirebasePush(Signalement signalement) {
+        if (signalement.getFirebaseId() != null && !signalement.getFirebaseId().isEmpty()) {
+            firebaseOutboxRepository.enqueue(signalement.getId());
+        }
+    }
+
     public int syncFromFirebase() throws Exception {
-        System.out.println("=== DEBUT SYNCFROMFIREBASE ===");
+        return syncFromFirebase(false);
+    }
+
+    /**
+     * Importe les documents Firestore absents de la base locale.
+     * En mode incrémental, seuls les documents postérieurs au curseur mémorisé (createdAt, id du document)
+     * sont lus, par pages ordonnées: le coût d'une synchronisation suit le nombre de nouveaux signalements,
+     * pas la taille de la collection. Le mode complet parcourt toute la collection, y compris les documents
+     * sans createdAt (absents d'une requête triée sur ce champ), sans déplacer le curseur.
+     * Une erreur (Firebase non initialisé, Firestore injoignable) est journalisée et donne 0.
+     */
+    public int syncFromFirebase(boolean full) throws Exception {
+        try {
+            return syncFromFirebase(full, SyncProgress.NONE);
+        } catch (java.util.concurrent.TimeoutException e) {
+            System.err.println("TIMEOUT: Firestore n'a pas répondu après 30 secondes");
+            System.out.println("Retour 0 synchronisé (timeout Firestore)");
+            return 0;
+        } catch (com.google.api.gax.rpc.UnavailableException e) {
+            System.err.println("Firestore indisponible - Credentials invalides ou pas de connexion");
+            System.out.println("Retour 0 synchronisé (Firestore indisponible)");
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la synchronisation Firebase: " + e.getMessage());
+            e.printStackTrace();
+            System.out.println("Retour 0 synchronisé (erreur)");
+            return 0;
+        }
+    }
+
+    /**
+     * Import lancé en arrière-plan (SyncJobService): les erreurs sont propagées pour que le travail échoue.
+     * @param progress avancé du nombre de documents lus à chaque page écrite
+     */
+    public int syncFromFirebase(boolean full, SyncProgress progress) throws Exception {
+        System.out.println("=== DEBUT SYNCFROMFIREBASE (" + (full ? "complète" : "incrémentale") + ") ===");
         
         Firestore db = firebaseService.getFirestore();
         System.out.println("Firestore instance: " + (db != null ? "OK" : "NULL"));
         
         if (db == null) {
-            System.out.println("Firebase n'est pas initialisé - retour 0 synchronisé");
+            throw new Exception("Firebase n'est pas initialisé");
+        }
+
+        ImportContext context = buildImportContext();
+        if (context == null) {
+            throw new Exception("Compte admin, type de problème ou statut 'nouveau' non trouvé");
+        }
+
+        CollectionReference collection = db.collection("roadworks_reports");
+        FirestorePager pager = new FirestorePager(full
+                ? collection.orderBy(FieldPath.documentId())
+                : collection.orderBy("createdAt").orderBy(FieldPath.documentId()), syncBatchSize);
+
+        SyncWatermark watermark;
+        if (!full) {
+            watermark = syncWatermarkRepository.findById(FIRESTORE_WATERMARK)
+                    .orElseGet(() -> SyncWatermark.builder().name(FIRESTORE_WATERMARK).build());
+            if (watermark.getLastCreatedAt() != null) {
+                // Recouvrement: un document validé juste après le passage précédent peut porter un createdAt
+                // antérieur au curseur. Les documents relus sont écartés par leur firebase_id
+                Instant from = watermark.getLastCreatedAt().minusSeconds(syncOverlapSeconds);
+                pager.startAt(com.google.cloud.Timestamp.ofTimeSecondsAndNanos(from.getEpochSecond(), from.getNano()));
+                System.out.println("Curseur: createdAt >= " + from + " (dernier document: " + watermark.getLastDocumentId() + ")");
+            }
+        } else {
+            watermark = null;
+        }
+
+        // Lecture, analyse (photos comprises) et écriture par lots se recouvrent
+        FirebaseImportPipeline<FirebaseReport> pipeline =
+                new FirebaseImportPipeline<>(syncParseThreads, syncWriteThreads, syncQueueCapacity);
+        AtomicBoolean advance = new AtomicBoolean(watermark != null);
+        FirebaseImportPipeline.Stats stats = pipeline.run(pager,
+                this::parseReports,
+                reports -> writeReports(reports, context),
+                (reports, outcome) -> {
+                    progress.advance(reports.size());
+                    // Pages reçues dans l'ordre de lecture: le curseur s'arrête avant le premier document en échec,
+                    // qui sera relu à la prochaine synchronisation
+                    if (!advance.get()) {
+                        return;
+                    }
+                    int end = outcome.firstFailure() >= 0 ? outcome.firstFailure() : reports.size();
+                    for (int i = 0; i < end; i++) {
+                        advanceWatermark(watermark, reports.get(i));
+                    }
+                    if (outcome.firstFailure() >= 0) {
+                        advance.set(false);
+                    }
+                    // Curseur enregistré après chaque page: une synchronisation interrompue reprend où elle s'est arrêtée
+                    if (watermark.getLastCreatedAt() != null) {
+                        watermark.setUpdatedAt(Instant.now());
+                        syncWatermarkRepository.save(watermark);
+                    }
+                });
+        lastImportStats = stats;
+        int count = (int) stats.imported();
+
+        System.out.println("Synchronisation terminée: " + stats.documents() + " document(s) lu(s), " + count
+                + " signalements importés en " + stats.elapsedMillis() + " ms");
+
+        // Notification de fin de synchronisation
+        if (count > 0) {
+            notificationService.notifySyncCompleted(count);
+        }
+
+        return count;
+    }
+
+    /**
+     * Compteurs par étage de la dernière synchronisation depuis Firebase (null si aucune depuis le démarrage).
+     */
+    public FirebaseImportPipeline.Stats getLastImportStats() {
+        return lastImportStats;
+    }
+
+    // Références d'une synchronisation: types et statuts par libellé
+    private record ImportContext(Account defaultAccount, TypeProblem defaultType, StatusSignalement defaultStatus,
+                                 Map<String, TypeProblem> typesByLibelle,
+                                 Map<String, StatusSignalement> statusesByLibelle) {
+    }
+
+    /**
+     * Références chargées une fois, partagées par les threads d'écriture.
+     * @return null si le compte admin, le type "other" (ou un autre) ou le statut "nouveau" manque
+     */
+    private ImportContext buildImportContext() {
+        Account defaultAccount = accountRepository.findByUsername("admin").orElse(null);
+        TypeProblem defaultType = typeProblemRepository.findByLibelle("other")
+                .orElseGet(() -> typeProblemRepository.findAll().stream().findFirst().orElse(null));
+        StatusSignalement defaultStatus = statusSignalementRepository.findByLibelle("nouveau").orElse(null);
+
+        if (defaultAccount == null || defaultType == null || defaultStatus == null) {
+            System.out.println("Compte admin, type de problème ou statut 'nouveau' non trouvé");
+            return null;
+        }
+
+        return new ImportContext(defaultAccount, defaultType, defaultStatus,
+                typeProblemRepository.findAll().stream()
+                        .collect(Collectors.toMap(TypeProblem::getLibelle, type -> type, (a, b) -> a)),
+                statusSignalementRepository.findAll().stream()
+                        .collect(Collectors.toMap(StatusSignalement::getLibelle, status -> status, (a, b) -> a)));
+    }
+
+    /**
+     * Applique un lot de changements reçus par le listener Firestore (FirebaseListenerService).
+     * Un document inconnu est importé comme par syncFromFirebase. Un document déjà importé n'est mis à jour
+     * que si sa description, sa position, son type ou son état diffèrent de l'état local: l'écho de nos propres
+     * envois vers Firestore ne produit aucune écriture. Un document supprimé supprime le signalement.
+     * Conflit: un signalement dont une modification locale attend dans firebase_outbox n'est pas mis à jour,
+     * la modification locale l'emporte jusqu'à son envoi (le document reçu peut être antérieur à celle-ci).
+     * Les changements appliqués ne sont pas renvoyés vers Firestore (pas d'outbox), et les photos d'un document
+     * déjà importé ne sont pas relues.
+     * @return le nombre de signalements créés, modifiés ou supprimés
+     */
+    public int applyFirebaseChanges(List<QueryDocumentSnapshot> documents, List<String> removedFirebaseIds) {
+        ImportContext context = buildImportContext();
+        if (context == null) {
             return 0;
         }
 
-        try {
-            System.out.println("Récupération des documents de la collection 'roadworks_reports'");
-            ApiFuture<QuerySnapshot> query = db.collection("roadworks_reports").get();
-            
-            // Ajouter un timeout de 30 secondes
-            System.out.println("Attendre la réponse de Firestore...");
-            QuerySnapshot querySnapshot = query.get(30, java.util.concurrent.TimeUnit.SECONDS);
-            System.out.println("Nombre de documents trouvés: " + querySnapshot.getDocuments().size());
-
-            int count = 0;
-            Account defaultAccount = accountRepository.findByUsername("admin").orElse(null);
-            TypeProblem defaultType = typeProblemRepository.findByLibelle("other")
-                    .orElseGet(() -> typeProblemRepository.findAll().stream().findFirst().orElse(null));
-
-            if (defaultAccount == null || defaultType == null) {
-                System.out.println("Compte admin ou type de problème non trouvé");
-                return 0;
+        Map<String, SignalementReadModel> known = documents.isEmpty() ? Map.of()
+                : readModelRepository.findByFirebaseIdIn(documents.stream().map(DocumentSnapshot::getId).toList()).stream()
+                        .collect(Collectors.toMap(SignalementReadModel::getFirebaseId, row -> row, (a, b) -> a));
+
+        Set<Long> pendingPush = known.isEmpty() ? Set.of()
+                : new HashSet<>(firebaseOutboxRepository.findPendingIds(
+                        known.values().stream().map(SignalementReadModel::getSignalementId).toList()));
+
+        List<QueryDocumentSnapshot> added = new ArrayList<>();
+        List<QueryDocumentSnapshot> modified = new ArrayList<>();
+        for (QueryDocumentSnapshot document : documents) {
+            SignalementReadModel row = known.get(document.getId());
+            if (row == null) {
+                added.add(document);
+            } else if (!pendingPush.contains(row.getSignalementId()) && differsFromLocal(document, row, context)) {
+                modified.add(document);
             }
+        }
 
-            for (var document : querySnapshot.getDocuments()) {
-                try {
-                    String firebaseId = document.getId();
-                    System.out.println("\n--- Traitement du document: " + firebaseId + " ---");
+        int imported = added.isEmpty() ? 0 : writeReports(parseReports(added), context).imported();
+        int updated = applyRemoteChanges(modified, known, context);
+        int removed = removedFirebaseIds.isEmpty() ? 0 : transactionTemplate.execute(tx -> {
+            List<Long> ids = repository.findIdsByFirebaseIds(removedFirebaseIds);
+            // Photos, historique et travaux supprimés en cascade par la base; tombstones posés par le projecteur
+            repository.deleteAllByIdInBatch(ids);
+            ids.forEach(id -> eventPublisher.publishEvent(new SignalementChangedEvent(id)));
+            return ids.size();
+        });
+
+        if (imported + updated + removed > 0) {
+            System.out.println("Listener Firebase: " + imported + " importé(s), " + updated + " modifié(s), "
+                    + removed + " supprimé(s)");
+        }
+        return imported + updated + removed;
+    }
 
-                    // Vérifier si ce signalement a déjà été synchronisé
-                    if (repository.findByFirebaseId(firebaseId).isPresent()) {
-                        System.out.println("✓ Signalement Firebase déjà synchronisé: " + firebaseId);
-                        continue;
-                    }
+    // Champs que l'application mobile peut modifier, comparés dans le format écrit vers Firestore.
+    // Un type inconnu en base (importé avec le type par défaut) n'est pas une différence
+    private boolean differsFromLocal(DocumentSnapshot document, SignalementReadModel row, ImportContext context) {
+        String typeProblem = document.getString("status");
+        Double lat = readCoordinate(document, "lat", "latitude");
+        Double lng = readCoordinate(document, "lng", "longitude");
+        String description = document.getString("description");
+        return !Objects.equals(description != null ? description : "", row.getDescription())
+                || !Objects.equals(lat, row.getLatitude())
+                || !Objects.equals(lng, row.getLongitude())
+                || (typeProblem != null && context.typesByLibelle().containsKey(typeProblem) && !typeProblem.equals(row.getTypeProblem()))
+                || !mobileReportStatus(mapReportStatus(document.getString("reportStatus"))).equals(mobileReportStatus(row.getEtat()));
+    }
 
-                    String description = document.getString("description");
-                    // Support des deux formats de coordonnées: lat/lng ou latitude/longitude
-                    Double lat = document.getDouble("lat");
-                    if (lat == null) {
-                        lat = document.getDouble("latitude");
-                    }
-                    Double lng = document.getDouble("lng");
-                    if (lng == null) {
-                        lng = document.getDouble("longitude");
+    // Une transaction pour le lot; s'il est annulé, une transaction par document
+    private int applyRemoteChanges(List<QueryDocumentSnapshot> documents, Map<String, SignalementReadModel> known,
+                                   ImportContext context) {
+        if (documents.isEmpty()) {
+            return 0;
+        }
+        try {
+            return transactionTemplate.execute(tx -> (int) documents.stream()
+                    .filter(document -> applyRemoteChange(document, known.get(document.getId()), context))
+                    .count());
+        } catch (Exception batchError) {
+            System.err.println("⚠️ Échec de la mise à jour du lot, reprise document par document: " + batchError.getMessage());
+            int updated = 0;
+            for (QueryDocumentSnapshot document : documents) {
+                try {
+                    if (transactionTemplate.execute(tx -> applyRemoteChange(document, known.get(document.getId()), context))) {
+                        updated++;
                     }
-                    String status = document.getString("status"); // Type de problème: pothole, accident, etc.
-                    String reportStatus = document.getString("reportStatus"); // État du signalement: new, in_progress, completed
+                } catch (Exception e) {
+                    System.err.println("❌ ERREUR lors de la mise à jour du document " + document.getId() + ": " + e.getMessage());
+                }
+            }
+            return updated;
+        }
+    }
 
-                    System.out.println("Valeurs trouvées:");
-                    System.out.println("  description: " + description);
-                    System.out.println("  lat: " + lat);
-                    System.out.println("  lng: " + lng);
-                    System.out.println("  status (type): " + status);
-                    System.out.println("  reportStatus (état): " + reportStatus);
-                    System.out.println("Tous les champs du document: " + document.getData());
+    // Le verrou sur le signalement attend une modification locale en cours (statut, travaux): validée,
+    // elle a mis le signalement dans l'outbox et le document reçu est ignoré
+    private boolean applyRemoteChange(DocumentSnapshot document, SignalementReadModel row, ImportContext context) {
+        Signalement signalement = repository.findByIdForUpdate(row.getSignalementId()).orElse(null);
+        if (signalement == null || firebaseOutboxRepository.existsById(signalement.getId())) {
+            return false;
+        }
+        String description = document.getString("description");
+        signalement.setDescriptions(description != null ? description : "");
+        Double lat = readCoordinate(document, "lat", "latitude");
+        Double lng = readCoordinate(document, "lng", "longitude");
+        if (lat != null && lng != null) {
+            signalement.setLocation(lat + "," + lng);
+        }
+        String typeProblem = document.getString("status");
+        if (typeProblem != null && context.typesByLibelle().containsKey(typeProblem)) {
+            signalement.setTypeProblem(context.typesByLibelle().get(typeProblem));
+        }
+        repository.save(signalement);
+
+        // Le statut local n'est remplacé que si l'état mobile a changé ("resolu" et "terminé" s'affichent "completed")
+        String etat = mapReportStatus(document.getString("reportStatus"));
+        StatusSignalement statusSignalement = context.statusesByLibelle().get(etat);
+        if (statusSignalement != null && !mobileReportStatus(etat).equals(mobileReportStatus(row.getEtat()))) {
+            recordStatus(signalement, statusSignalement);
+            notificationService.notifyStatusUpdated(signalement, etat);
+        }
+        eventPublisher.publishEvent(new SignalementChangedEvent(signalement.getId()));
+        return true;
+    }
 
-                    if (lat != null && lng != null) {
-                        System.out.println("✓ Champs requis présents, création du signalement...");
+    // Support des deux formats de coordonnées: lat/lng ou latitude/longitude
+    private Double readCoordinate(DocumentSnapshot document, String field, String fallbackField) {
+        Double value = document.getDouble(field);
+        return value != null ? value : document.getDouble(fallbackField);
+    }
 
-                        // Mapper le type de problème Firebase vers la base de données
-                        TypeProblem typeProblem = defaultType;
-                        if (status != null && !status.isEmpty()) {
-                            typeProblem = typeProblemRepository.findByLibelle(status).orElse(defaultType);
-                            System.out.println("  Type de problème mappé: " + typeProblem.getLibelle());
-                        }
+    /**
+     * Document Firestore analysé hors transaction. Un document ignoré (déjà importé ou incomplet)
+     * ou en échec (error) ne crée rien mais fait avancer le curseur, sauf en cas d'échec.
+     */
+    private record FirebaseReport(String firebaseId, Instant cursorCreatedAt, boolean ignored, Exception error,
+                                  String description, double lat, double lng, String typeProblem, Instant createdAt,
+                                  String status, List<SignalementPhoto> photos, Map<String, Object> work) {
 
-                        // Récupérer le timestamp original de Firebase (champ "createdAt" ou "timestamp")
-                        Instant createdAt = Instant.now(); // Valeur par défaut
-                        Object timestampObj = document.get("createdAt");
-                        if (timestampObj == null) {
-                            timestampObj = document.get("timestamp"); // Fallback
-                        }
-                        if (timestampObj != null) {
-                            if (timestampObj instanceof com.google.cloud.Timestamp) {
-                                createdAt = ((com.google.cloud.Timestamp) timestampObj).toDate().toInstant();
-                                System.out.println("  ✓ Timestamp Firebase (Timestamp): " + createdAt);
-                            } else if (timestampObj instanceof java.util.Date) {
-                                createdAt = ((java.util.Date) timestampObj).toInstant();
-                                System.out.println("  ✓ Timestamp Firebase (Date): " + createdAt);
-                            } else if (timestampObj instanceof Long) {
-                                createdAt = Instant.ofEpochMilli((Long) timestampObj);
-                                System.out.println("  ✓ Timestamp Firebase (Long): " + createdAt);
-                            } else if (timestampObj instanceof Number) {
-                                createdAt = Instant.ofEpochMilli(((Number) timestampObj).longValue());
-                                System.out.println("  ✓ Timestamp Firebase (Number): " + createdAt);
-                            } else {
-                                System.out.println("  ⚠️ Timestamp de type inconnu: " + timestampObj.getClass().getName() + ", utilisation de now()");
-                            }
-                        } else {
-                            System.out.println("  ⚠️ Pas de createdAt/timestamp dans Firebase, utilisation de now()");
-                        }
+        static FirebaseReport ignored(String firebaseId, Instant cursorCreatedAt) {
+            return new FirebaseReport(firebaseId, cursorCreatedAt, true, null, null, 0, 0, null, null, null, List.of(), null);
+        }
 
-                        Signalement signalement = Signalement.builder()
-                                .account(defaultAccount)
-                                .typeProblem(typeProblem)
-                                .descriptions(description != null ? description : "")
-                                .location(lat + "," + lng)
-                                .createdAt(createdAt)
-                                .firebaseId(firebaseId)
-                                .build();
-
-                        Signalement saved = repository.save(signalement);
-                        System.out.println("✓ Signalement sauvegardé avec ID: " + saved.getId());
-
-                        // Synchroniser les photos depuis Firebase
-                        List<String> photos = (List<String>) document.get("photos");
-                        if (photos != null && !photos.isEmpty()) {
-                            System.out.println("✓ " + photos.size() + " photo(s) trouvée(s) dans Firebase");
-                            int photoOrder = 1;
-                            for (String photoData : photos) {
-                                // Ignorer les photos vides ou nulles
-                                if (photoData == null || photoData.trim().isEmpty()) {
-                                    System.out.println("  ⚠️ Photo ignorée (vide ou nulle)");
-                                    continue;
-                                }
-                                try {
-                                    SignalementPhoto photo = SignalementPhoto.builder()
-                                            .signalement(saved)
-                                            .photoData(photoData)
-                                            .photoOrder(photoOrder++)
-                                            .createdAt(Instant.now())
-                                            .build();
-                                    photoRepository.save(photo);
-                                    System.out.println("  ✓ Photo " + (photoOrder - 1) + " sauvegardée (taille: " + photoData.length() + " caractères)");
-                                } catch (Exception e) {
-                                    System.err.println("  ⚠️ Erreur lors de la sauvegarde de la photo: " + e.getMessage());
-                                }
-                            }
-                        } else {
-                            System.out.println("✓ Pas de photos dans le document Firebase");
-                        }
+        static FirebaseReport failed(String firebaseId, Instant cursorCreatedAt, Exception error) {
+            return new FirebaseReport(firebaseId, cursorCreatedAt, false, error, null, 0, 0, null, null, null, List.of(), null);
+        }
+    }
 
-                        // Vérifier s'il y a des informations de travail dans le document Firebase
-                        Map<String, Object> workInfo = (Map<String, Object>) document.get("work");
-                        boolean hasWork = workInfo != null;
-                        System.out.println("✓ Document a du travail: " + hasWork);
-
-                        // Mapper le statut Firestore vers les statuts de la base
-                        // Si reportStatus existe, l'utiliser, sinon "nouveau"
-                        String statusToUse = "nouveau";
-
-                        if (reportStatus != null && !reportStatus.isEmpty()) {
-                            String firebaseReportStatus = reportStatus.toLowerCase().trim();
-                            System.out.println("  Mapping du reportStatus: '" + reportStatus + "' -> '" + firebaseReportStatus + "'");
-
-                            // Mapping reportStatus Firebase → Base de données
-                            if (firebaseReportStatus.equals("in_progress") || firebaseReportStatus.equals("en_cours")) {
-                                statusToUse = "en_cours";
-                                System.out.println("    Résultat: 'en_cours'");
-                            } else if (firebaseReportStatus.equals("completed") || firebaseReportStatus.equals("terminé") || firebaseReportStatus.equals("resolved")) {
-                                statusToUse = "terminé";
-                                System.out.println("    Résultat: 'terminé'");
-                            } else if (firebaseReportStatus.equals("cancelled") || firebaseReportStatus.equals("annulé") || firebaseReportStatus.equals("rejected")) {
-                                statusToUse = "annulé";
-                                System.out.println("    Résultat: 'annulé'");
-                            } else {
-                                // new ou autre valeur → nouveau
-                                statusToUse = "nouveau";
-                                System.out.println("    Résultat: 'nouveau' (default)");
-                            }
-                        } else {
-                            System.out.println("  reportStatus absent -> Statut par défaut: 'nouveau'");
-                        }
+    // Le curseur n'avance que sur un createdAt de type Timestamp (format écrit par l'application mobile)
+    private void advanceWatermark(SyncWatermark watermark, FirebaseReport report) {
+        Instant createdAt = report.cursorCreatedAt();
+        if (createdAt == null) {
+            return;
+        }
+        Instant last = watermark.getLastCreatedAt();
+        if (last == null || createdAt.isAfter(last)
+                || (createdAt.equals(last) && report.firebaseId().compareTo(watermark.getLastDocumentId()) > 0)) {
+            watermark.setLastCreatedAt(createdAt);
+            watermark.setLastDocumentId(report.firebaseId());
+        }
+    }
 
-                        System.out.println("Statut final à utiliser: " + statusToUse);
-
-                        // Convertir en final pour la lambda
-                        final String finalStatusToUse = statusToUse;
-                        
-                        var statusSignalement = statusSignalementRepository
-                                .findByLibelle(finalStatusToUse)
-                                .orElseGet(() -> {
-                                    System.out.println("⚠️  Statut '" + finalStatusToUse + "' non trouvé, utilisation du statut 'nouveau'");
-                                    return statusSignalementRepository.findByLibelle("nouveau").orElse(null);
-                                });
-
-                        if (statusSignalement != null) {
-                            System.out.println("✓ StatusSignalement trouvé: " + statusSignalement.getLibelle());
-
-                            SignalementStatus signalStatus = SignalementStatus.builder()
-                                    .signalement(saved)
-                                    .statusSignalement(statusSignalement)
-                                    .updatedAt(Instant.now())
-                                    .build();
-                            statusRepository.save(signalStatus);
-                            System.out.println("✓ Status créé et sauvegardé");
-
-                            // Vérifier s'il y a des informations de travail dans le document Firebase (déjà extrait plus haut)
-                            if (workInfo != null) {
-                                System.out.println("✓ Informations de travail trouvées dans Firebase");
-                                try {
-                                    // Extraire les données du travail
-                                    String companyName = (String) workInfo.get("company");
-                                    Number surface = (Number) workInfo.get("surface");
-                                    Number price = (Number) workInfo.get("price");
-                                    String startDateStr = (String) workInfo.get("startDate");
-                                    String endDateStr = (String) workInfo.get("endDateEstimation");
-
-                                    System.out.println("  Données extraites:");
-                                    System.out.println("    Company: " + companyName);
-                                    System.out.println("    Surface: " + surface);
-                                    System.out.println("    Price: " + price);
-                                    System.out.println("    StartDate: " + startDateStr);
-                                    System.out.println("    EndDate: " + endDateStr);
-
-                                    // Si on a au moins une entreprise et un prix, créer le SignalementWork
-                                    if (companyName != null && !companyName.isEmpty()) {
-                                        // Chercher ou créer l'entreprise
-                                        Company company = companyRepository.findByName(companyName)
-                                                .orElseGet(() -> {
-                                                    System.out.println("  Création d'une nouvelle entreprise: " + companyName);
-                                                    Company newCompany = Company.builder()
-                                                            .name(companyName)
-                                                            .siret("UNKNOWN") // Valeur par défaut
-                                                            .address("") // Vide
-                                                            .build();
-                                                    return companyRepository.save(newCompany);
-                                                });
-
-                                        System.out.println("  Entreprise trouvée/créée: " + company.getName());
-
-                                        // Créer le SignalementWork
-                                        LocalDate startDate = null;
-                                        LocalDate endDate = null;
-
-                                        if (startDateStr != null && !startDateStr.isEmpty()) {
-                                            try {
-                                                startDate = LocalDate.parse(startDateStr);
-                                                System.out.println("  StartDate parsée: " + startDate);
-                                            } catch (Exception e) {
-                                                System.out.println("  ⚠️ Impossible de parser startDate: " + startDateStr);
-                                            }
-                                        }
-
-                                        if (endDateStr != null && !endDateStr.isEmpty()) {
-                                            try {
-                                                endDate = LocalDate.parse(endDateStr);
-                                                System.out.println("  EndDate parsée: " + endDate);
-                                            } catch (Exception e) {
-                                                System.out.println("  ⚠️ Impossible de parser endDate: " + endDateStr);
-                                            }
-                                        }
-
-                                        BigDecimal priceValue = null;
-                                        if (price != null) {
-                                            priceValue = BigDecimal.valueOf(price.doubleValue());
-                                            System.out.println("  Price convertie: " + priceValue);
-                                        }
-
-                                        // Mettre à jour la surface du signalement
-                                        if (surface != null) {
-                                            saved.setSurface(BigDecimal.valueOf(surface.doubleValue()));
-                                            repository.save(saved);
-                                            System.out.println("  Surface mise à jour: " + surface);
-                                        }
-
-                                        // Créer le SignalementWork
-                                        SignalementWork work = SignalementWork.builder()
-                                                .signalement(saved)
-                                                .company(company)
-                                                .startDate(startDate)
-                                                .endDateEstimation(endDate)
-                                                .price(priceValue)
-                                                .build();
-
-                                        workRepository.save(work);
-                                        System.out.println("✓ SignalementWork créé et sauvegardé pour le signalement: " + saved.getId());
-                                    }
-                                } catch (Exception e) {
-                                    System.err.println("  ❌ Erreur lors de la création du SignalementWork: " + e.getMessage());
-                                    e.printStackTrace();
-                                }
-                            } else {
-                                System.out.println("✓ Pas de travail associé dans Firebase");
-                            }
+    // Identifiants des documents déjà importés, par paquets de FIREBASE_ID_CHUNK (une requête IN chacun)
+    private Set<String> findExistingFirebaseIds(List<? extends DocumentSnapshot> documents) {
+        List<String> ids = documents.stream().map(DocumentSnapshot::getId).toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += FIREBASE_ID_CHUNK) {
+            existing.addAll(repository.findExistingFirebaseIds(ids.subList(from, Math.min(from + FIREBASE_ID_CHUNK, ids.size()))));
+        }
+        return existing;
+    }
 
-                            count++;
-                            System.out.println("✓ Signalement importé avec succès! (Total: " + count + ")");
+    /**
+     * Étage d'analyse: écarte les documents déjà importés (une requête pour la page), puis convertit les autres
+     * et range leurs photos dans le stockage. Aucune transaction n'est ouverte.
+     */
+    private List<FirebaseReport> parseReports(List<QueryDocumentSnapshot> documents) {
+        Set<String> existingFirebaseIds = findExistingFirebaseIds(documents);
+        List<FirebaseReport> reports = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            Instant cursorCreatedAt = document.get("createdAt") instanceof com.google.cloud.Timestamp timestamp
+                    ? Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos())
+                    : null;
+            if (existingFirebaseIds.contains(document.getId())) {
+                System.out.println("✓ Signalement Firebase déjà synchronisé: " + document.getId());
+                reports.add(FirebaseReport.ignored(document.getId(), cursorCreatedAt));
+                continue;
+            }
+            try {
+                reports.add(parseReport(document, cursorCreatedAt));
+            } catch (Exception e) {
+                System.err.println("❌ ERREUR lors de l'analyse du document " + document.getId() + ": " + e.getMessage());
+                reports.add(FirebaseReport.failed(document.getId(), cursorCreatedAt, e));
+            }
+        }
+        return reports;
+    }
 
-                            // Envoyer notification WebSocket pour nouveau signalement
-                            notificationService.notifyNewSignalement(saved);
-                        } else {
-                            System.out.println("❌ ERREUR: StatusSignalement null pour '" + finalStatusToUse + "'");
-                        }
-                    } else {
-                        System.out.println("❌ Document incomplet:");
-                        System.out.println("   lat: " + (lat == null ? "NULL" : "OK"));
-                        System.out.println("   lng: " + (lng == null ? "NULL" : "OK"));
+    @SuppressWarnings("unchecked")
+    private FirebaseReport parseReport(DocumentSnapshot document, Instant cursorCreatedAt) {
+        String firebaseId = document.getId();
+        System.out.println("\n--- Traitement du document: " + firebaseId + " ---");
+
+        String description = document.getString("description");
+        Double lat = readCoordinate(document, "lat", "latitude");
+        Double lng = readCoordinate(document, "lng", "longitude");
+        if (lat == null || lng == null) {
+            System.out.println("❌ Document incomplet:");
+            System.out.println("   lat: " + (lat == null ? "NULL" : "OK"));
+            System.out.println("   lng: " + (lng == null ? "NULL" : "OK"));
+            return FirebaseReport.ignored(firebaseId, cursorCreatedAt);
+        }
+        String status = document.getString("status"); // Type de problème: pothole, accident, etc.
+        String reportStatus = document.getString("reportStatus"); // État du signalement: new, in_progress, completed
+
+        // Récupérer le timestamp original de Firebase (champ "createdAt" ou "timestamp")
+        Instant createdAt = Instant.now(); // Valeur par défaut
+        Object timestampObj = document.get("createdAt");
+        if (timestampObj == null) {
+            timestampObj = document.get("timestamp"); // Fallback
+        }
+        if (timestampObj instanceof com.google.cloud.Timestamp timestamp) {
+            createdAt = timestamp.toDate().toInstant();
+        } else if (timestampObj instanceof java.util.Date date) {
+            createdAt = date.toInstant();
+        } else if (timestampObj instanceof Number number) {
+            createdAt = Instant.ofEpochMilli(number.longValue());
+        } else if (timestampObj != null) {
+            System.out.println("  ⚠️ Timestamp de type inconnu: " + timestampObj.getClass().getName() + ", utilisation de now()");
+        } else {
+            System.out.println("  ⚠️ Pas de createdAt/timestamp dans Firebase, utilisation de now()");
+        }
+
+        // Photos: décodage et rangement dans le stockage (dédupliqué par SHA-256) avant l'écriture en base
+        List<SignalementPhoto> photos = new ArrayList<>();
+        List<String> photoDataList = (List<String>) document.get("photos");
+        if (photoDataList != null) {
+            for (String photoData : photoDataList) {
+                // Ignorer les photos vides ou nulles
+                if (photoData == null || photoData.trim().isEmpty()) {
+                    System.out.println("  ⚠️ Photo ignorée (vide ou nulle)");
+                    continue;
+                }
+                try {
+                    photos.add(photoService.buildPhoto(null, photoData, photos.size() + 1));
+                } catch (Exception e) {
+                    System.err.println("  ⚠️ Erreur lors de la sauvegarde de la photo: " + e.getMessage());
+                }
+            }
+        }
+
+        return new FirebaseReport(firebaseId, cursorCreatedAt, false, null,
+                description != null ? description : "", lat, lng, status, createdAt,
+                mapReportStatus(reportStatus), photos, (Map<String, Object>) document.get("work"));
+    }
+
+    // Mapping reportStatus Firebase → Base de données (absent ou inconnu: "nouveau")
+    private String mapReportStatus(String reportStatus) {
+        if (reportStatus == null || reportStatus.isEmpty()) {
+            return "nouveau";
+        }
+        String firebaseReportStatus = reportStatus.toLowerCase().trim();
+        if (firebaseReportStatus.equals("in_progress") || firebaseReportStatus.equals("en_cours")) {
+            return "en_cours";
+        } else if (firebaseReportStatus.equals("completed") || firebaseReportStatus.equals("terminé") || firebaseReportStatus.equals("resolved")) {
+            return "terminé";
+        } else if (firebaseReportStatus.equals("cancelled") || firebaseReportStatus.equals("annulé") || firebaseReportStatus.equals("rejected")) {
+            return "annulé";
+        }
+        return "nouveau";
+    }
+
+    /**
+     * Étage d'écriture: une transaction par page, les lignes de la page sont insérées en lots JDBC au commit.
+     * Si la page est annulée, elle est rejouée document par document pour isoler celui qui échoue.
+     */
+    private FirebaseImportPipeline.PageOutcome writeReports(List<FirebaseReport> reports, ImportContext context) {
+        int firstFailure = -1;
+        for (int i = 0; i < reports.size() && firstFailure < 0; i++) {
+            if (reports.get(i).error() != null) {
+                firstFailure = i;
+            }
+        }
+        try {
+            int imported = transactionTemplate.execute(tx -> {
+                int count = 0;
+                for (FirebaseReport report : reports) {
+                    if (persistReport(report, context)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            return new FirebaseImportPipeline.PageOutcome(imported, firstFailure);
+        } catch (Exception pageError) {
+            System.err.println("⚠️ Échec de l'import de la page, reprise document par document: " + pageError.getMessage());
+            int imported = 0;
+            for (int i = 0; i < reports.size(); i++) {
+                FirebaseReport report = reports.get(i);
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(tx -> persistReport(report, context)))) {
+                        imported++;
                     }
                 } catch (Exception e) {
-                    System.err.println("❌ ERREUR lors de la synchronisation du document: " + e.getMessage());
+                    System.err.println("❌ ERREUR lors de la synchronisation du document " + report.firebaseId() + ": " + e.getMessage());
                     e.printStackTrace();
+                    if (firstFailure < 0 || i < firstFailure) {
+                        firstFailure = i;
+                    }
                 }
             }
+            return new FirebaseImportPipeline.PageOutcome(imported, firstFailure);
+        }
+    }
+
+    /**
+     * Crée le signalement (photos, statut, travail) d'un document analysé, dans la transaction en cours.
+     * @return false si le document est ignoré ou en échec d'analyse
+     */
+    private boolean persistReport(FirebaseReport report, ImportContext context) {
+        if (report.ignored() || report.error() != null) {
+            return false;
+        }
+        TypeProblem typeProblem = report.typeProblem() != null
+                ? context.typesByLibelle().getOrDefault(report.typeProblem(), context.defaultType())
+                : context.defaultType();
+
+        Signalement signalement = Signalement.builder()
+                .account(context.defaultAccount())
+                .typeProblem(typeProblem)
+                .descriptions(report.description())
+                .location(report.lat() + "," + report.lng())
+                .createdAt(report.createdAt())
+                .firebaseId(report.firebaseId())
+                .build();
+
+        Signalement saved = repository.save(signalement);
+
+        // Photos déjà rangées dans le stockage: seules les lignes sont créées (nouvelles à chaque tentative)
+        Instant now = Instant.now();
+        for (SignalementPhoto stored : report.photos()) {
+            photoRepository.save(SignalementPhoto.builder()
+                    .signalement(saved)
+                    .photoOrder(stored.getPhotoOrder())
+                    .photoData(stored.getPhotoData())
+                    .contentHash(stored.getContentHash())
+                    .contentType(stored.getContentType())
+                    .contentLength(stored.getContentLength())
+                    .createdAt(now)
+                    .build());
+        }
+
+        StatusSignalement statusSignalement = context.statusesByLibelle().get(report.status());
+        if (statusSignalement == null) {
+            System.out.println("⚠️  Statut '" + report.status() + "' non trouvé, utilisation du statut 'nouveau'");
+            statusSignalement = context.defaultStatus();
+        }
+        recordStatus(saved, statusSignalement);
 
-            System.out.println("Synchronisation terminée: " + count + " signalements importés");
+        Map<String, Object> workInfo = report.work();
+        if (workInfo != null) {
+            try {
+                // Extraire les données du travail
+                String companyName = (String) workInfo.get("company");
+                Number surface = (Number) workInfo.get("surface");
+                Number price = (Number) workInfo.get("price");
+                String startDateStr = (String) workInfo.get("startDate");
+                String endDateStr = (String) workInfo.get("endDateEstimation");
+
+                // Si on a au moins une entreprise, créer le SignalementWork
+                if (companyName != null && !companyName.isEmpty()) {
+                    Company company = companyRepository.getReferenceById(resolveCompanyId(companyName));
+
+                    LocalDate startDate = null;
+                    LocalDate endDate = null;
+                    if (startDateStr != null && !startDateStr.isEmpty()) {
+                        try {
+                            startDate = LocalDate.parse(startDateStr);
+                        } catch (Exception e) {
+                            System.out.println("  ⚠️ Impossible de parser startDate: " + startDateStr);
+                        }
+                    }
+                    if (endDateStr != null && !endDateStr.isEmpty()) {
+                        try {
+                            endDate = LocalDate.parse(endDateStr);
+                        } catch (Exception e) {
+                            System.out.println("  ⚠️ Impossible de parser endDate: " + endDateStr);
+                        }
+                    }
+
+                    // Mettre à jour la surface du signalement
+                    if (surface != null) {
+                        saved.setSurface(BigDecimal.valueOf(surface.doubleValue()));
+                    }
 
-            // Notification de fin de synchronisation
-            if (count > 0) {
-                notificationService.notifySyncCompleted(count);
+                    workRepository.save(SignalementWork.builder()
+                            .signalement(saved)
+                            .company(company)
+                            .startDate(startDate)
+                            .endDateEstimation(endDate)
+                            .price(price != null ? BigDecimal.valueOf(price.doubleValue()) : null)
+                            .build());
+                }
+            } catch (Exception e) {
+                System.err.println("  ❌ Erreur lors de la création du SignalementWork: " + e.getMessage());
+                e.printStackTrace();
             }
+        }
 
-            return count;
-        } catch (java.util.concurrent.TimeoutException e) {
-            System.err.println("TIMEOUT: Firestore n'a pas répondu après 30 secondes");
-            System.out.println("Retour 0 synchronisé (timeout Firestore)");
-            return 0;
-        } catch (com.google.api.gax.rpc.UnavailableException e) {
-            System.err.println("Firestore indisponible - Credentials invalides ou pas de connexion");
-            System.out.println("Retour 0 synchronisé (Firestore indisponible)");
-            return 0;
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la synchronisation Firebase: " + e.getMessage());
-            e.printStackTrace();
-            System.out.println("Retour 0 synchronisé (erreur)");
-            return 0;
+        System.out.println("✓ Signalement importé avec succès! (ID: " + saved.getId() + ")");
+
+        eventPublisher.publishEvent(new SignalementChangedEvent(saved.getId()));
+
+        // Envoyer notification WebSocket pour nouveau signalement
+        notificationService.notifyNewSignalement(saved);
+        return true;
+    }
+
+    /**
+     * Entreprise retrouvée ou créée par upsert (une instruction, sûre entre imports parallèles) dans sa propre
+     * transaction: elle reste valable si la page est annulée. Un nom déjà résolu est lu dans le cache,
+     * sans accès à la base; le cache est vidé à chaque modification d'une entreprise.
+     */
+    private Long resolveCompanyId(String companyName) {
+        Cache companyIds = cacheManager.getCache(CacheConfig.COMPANY_IDS_BY_NAME);
+        Long companyId = companyIds.get(companyName, Long.class);
+        if (companyId == null) {
+            TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            companyId = requiresNew.execute(tx -> companyRepository.upsertIdByName(companyName));
+            companyIds.put(companyName, companyId);
         }
+        return companyId;
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public void addWork(Long signalementId, Map<String, Object> workData) throws Exception {
         try {
             Signalement signalement = repository.findById(signalementId)
@@ -515,13 +1128,9 @@ public class SignalementService {
             var statusSignalement = statusSignalementRepository.findByLibelle(status)
                     .orElseThrow(() -> new Exception("Statut invalide: " + status));
 
-            SignalementStatus signalStatus = SignalementStatus.builder()
-                    .signalement(signalement)
-                    .statusSignalement(statusSignalement)
-                    .updatedAt(Instant.now())
-                    .build();
-
-            statusRepository.save(signalStatus);
+            recordStatus(signalement, statusSignalement);
+            eventPublisher.publishEvent(new SignalementChangedEvent(signalementId));
+            enqueueFirebasePush(signalement);
 
             // Notification WebSocket
             notificationService.notifyWorkAdded(signalement, company.getName());
@@ -537,6 +1146,10 @@ public class SignalementService {
      * pour qu'ils soient visibles dans l'application mobile.
      */
     public int exportLocalSignalementsToFirebase() throws Exception {
+        return exportLocalSignalementsToFirebase(SyncProgress.NONE);
+    }
+
+    public int exportLocalSignalementsToFirebase(SyncProgress progress) throws Exception {
         System.out.println("=== DEBUT exportLocalSignalementsToFirebase ===");
         
         Firestore db = firebaseService.getFirestore();
@@ -546,22 +1159,12 @@ public class SignalementService {
         }
 
         // Récupérer tous les signalements sans firebaseId
-        List<Signalement> localSignalements = repository.findAll().stream()
-                .filter(s -> s.getFirebaseId() == null || s.getFirebaseId().isEmpty())
-                .collect(Collectors.toList());
-
+        List<SignalementReadModel> localSignalements = readModelRepository.findWithoutFirebaseId();
         System.out.println("Nombre de signalements locaux à exporter: " + localSignalements.size());
 
-        int exportedCount = 0;
-        for (Signalement signalement : localSignalements) {
-            try {
-                syncToFirebase(signalement.getId());
-                exportedCount++;
-                System.out.println("✓ Signalement " + signalement.getId() + " exporté vers Firebase");
-            } catch (Exception e) {
-                System.err.println("✗ Erreur export signalement " + signalement.getId() + ": " + e.getMessage());
-            }
-        }
+        progress.total(localSignalements.size());
+
+        int exportedCount = pushToFirebase(db, localSignalements, false, progress).written();
 
         System.out.println("=== FIN exportLocalSignalementsToFirebase - " + exportedCount + " exportés ===");
         return exportedCount;
@@ -570,8 +1173,13 @@ public class SignalementService {
     /**
      * Synchronise tous les statuts des signalements existants vers Firebase
      * pour que l'application mobile affiche les derniers changements.
+     * Seuls les signalements modifiés depuis leur dernier envoi sont écrits.
      */
     public int syncAllStatusToFirebase() throws Exception {
+        return syncAllStatusToFirebase(SyncProgress.NONE);
+    }
+
+    public int syncAllStatusToFirebase(SyncProgress progress) throws Exception {
         System.out.println("=== DEBUT syncAllStatusToFirebase ===");
         
         Firestore db = firebaseService.getFirestore();
@@ -581,22 +1189,12 @@ public class SignalementService {
         }
 
         // Récupérer tous les signalements avec un firebaseId (déjà synchronisés)
-        List<Signalement> syncedSignalements = repository.findAll().stream()
-                .filter(s -> s.getFirebaseId() != null && !s.getFirebaseId().isEmpty())
-                .collect(Collectors.toList());
-
+        List<SignalementReadModel> syncedSignalements = readModelRepository.findWithFirebaseId();
         System.out.println("Nombre de signalements à synchroniser: " + syncedSignalements.size());
 
-        int syncedCount = 0;
-        for (Signalement signalement : syncedSignalements) {
-            try {
-                syncToFirebase(signalement.getId());
-                syncedCount++;
-                System.out.println("✓ Statut du signalement " + signalement.getId() + " synchronisé vers Firebase");
-            } catch (Exception e) {
-                System.err.println("✗ Erreur sync statut signalement " + signalement.getId() + ": " + e.getMessage());
-            }
-        }
+        progress.total(syncedSignalements.size());
+
+        int syncedCount = pushToFirebase(db, syncedSignalements, false, progress).written();
 
         System.out.println("=== FIN syncAllStatusToFirebase - " + syncedCount + " synchronisés ===");
         return syncedCount;
@@ -604,7 +1202,7 @@ public class SignalementService {
 
     public void syncToFirebase(Long signalementId) throws Exception {
         try {
-            Signalement signalement = repository.findById(signalementId)
+            SignalementReadModel row = readModelRepository.findById(signalementId)
                     .orElseThrow(() -> new Exception("Signalement non trouvé"));
 
             Firestore db = firebaseService.getFirestore();
@@ -612,86 +1210,199 @@ public class SignalementService {
                 throw new Exception("Firebase n'est pas initialisé");
             }
 
-            // Récupérer le dernier statut (nouveau, en_cours, terminé, annulé)
-            SignalementStatus latestStatus = signalement.getStatuses().stream().findFirst().orElse(null);
-            String reportStatus = latestStatus != null ? latestStatus.getStatusSignalement().getLibelle() : "nouveau";
-
-            // Mapper le statut backend vers le format mobile
-            String mobileReportStatus = "new";
-            if ("en_cours".equals(reportStatus)) {
-                mobileReportStatus = "in_progress";
-            } else if ("terminé".equals(reportStatus) || "resolu".equals(reportStatus)) {
-                mobileReportStatus = "completed";
+            // Envoi demandé explicitement: écrit même si le contenu n'a pas changé
+            PushOutcome outcome = pushToFirebase(db, List.of(row), true, SyncProgress.NONE);
+            if (!outcome.failures().isEmpty()) {
+                throw new Exception("Échec de l'écriture dans Firestore: " + outcome.failures().get(signalementId));
             }
+        } catch (Exception e) {
+            System.err.println("Erreur dans syncToFirebase: " + e.getMessage());
+            e.printStackTrace();
+            throw e;
+        }
+    }
 
-            // Récupérer le dernier work s'il existe
-            SignalementWork latestWork = signalement.getWorks().stream().findFirst().orElse(null);
+    /**
+     * Envoie vers Firestore les signalements en attente dans l'outbox (FirebaseOutboxDispatcher).
+     * Un signalement supprimé depuis, ou dont le contenu n'a pas changé depuis le dernier envoi, n'est pas écrit.
+     * @return les signalements dont l'écriture a échoué, avec le message d'erreur
+     */
+    public Map<Long, String> pushPendingToFirebase(List<Long> signalementIds) throws Exception {
+        Firestore db = firebaseService.getFirestore();
+        if (db == null) {
+            throw new Exception("Firebase n'est pas initialisé");
+        }
+        List<SignalementReadModel> rows = readModelRepository.findAllById(signalementIds);
+        return pushToFirebase(db, rows, false, SyncProgress.NONE).failures();
+    }
 
-            // Extraire lat et lng depuis location
-            String[] coords = signalement.getLocation().split(",");
-            double lat = Double.parseDouble(coords[0].trim());
-            double lng = Double.parseDouble(coords[1].trim());
-
-            // Préparer les données à synchroniser
-            Map<String, Object> data = new java.util.HashMap<>();
-            data.put("description", signalement.getDescriptions());
-            data.put("lat", lat);
-            data.put("lng", lng);
-            data.put("status", signalement.getTypeProblem().getLibelle()); // Type de problème: pothole, accident, etc.
-            data.put("reportStatus", mobileReportStatus); // Statut: new, in_progress, completed
-            data.put("lastUpdated", Instant.now().toString());
-
-            // Préserver le userId existant si le document existe déjà dans Firebase
-            String firebaseId = signalement.getFirebaseId();
-            if (firebaseId != null && !firebaseId.isEmpty()) {
-                try {
-                    var existingDoc = db.collection("roadworks_reports").document(firebaseId).get().get();
-                    if (existingDoc.exists() && existingDoc.getString("userId") != null) {
-                        data.put("userId", existingDoc.getString("userId"));
-                    }
-                } catch (Exception e) {
-                    System.err.println("Impossible de récupérer le userId existant: " + e.getMessage());
-                }
-            }
+    // Document à écrire dans Firestore, avec l'empreinte de son contenu
+    private record FirebasePush(Long signalementId, DocumentReference document, Map<String, Object> data, String hash) {
+    }
+
+    /**
+     * @param written documents écrits (les signalements inchangés n'en font pas partie)
+     * @param failures écritures en échec, avec le message d'erreur
+     */
+    private record PushOutcome(int written, Map<Long, String> failures) {
+    }
 
-            // Ajouter les informations de travail si elles existent
-            if (latestWork != null) {
-                Map<String, Object> workData = new java.util.HashMap<>();
-                workData.put("surface", signalement.getSurface() != null ? signalement.getSurface().doubleValue() : null);
-                workData.put("company", latestWork.getCompany().getName());
-                workData.put("companyId", latestWork.getCompany().getId());
-                workData.put("startDate", latestWork.getStartDate() != null ? latestWork.getStartDate().toString() : null);
-                workData.put("endDateEstimation", latestWork.getEndDateEstimation() != null ? latestWork.getEndDateEstimation().toString() : null);
-                workData.put("realEndDate", latestWork.getRealEndDate() != null ? latestWork.getRealEndDate().toString() : null);
-                workData.put("price", latestWork.getPrice() != null ? latestWork.getPrice().doubleValue() : null);
-                data.put("work", workData);
+    /**
+     * Envoie les signalements vers Firestore par paquets de FIREBASE_PUSH_CHUNK, via un BulkWriter
+     * (écritures groupées et parallèles). Les documents sont fusionnés (set + merge): les champs écrits
+     * par l'application mobile (userId, updatedAt...) sont conservés sans lecture préalable.
+     * Un nouveau document reçoit un identifiant Firestore généré localement, enregistré avant l'écriture:
+     * un envoi interrompu est repris sur le même document.
+     * @param force écrire aussi les signalements dont le contenu n'a pas changé depuis le dernier envoi
+     */
+    private PushOutcome pushToFirebase(Firestore db, List<SignalementReadModel> rows, boolean force,
+                                       SyncProgress progress) throws Exception {
+        int written = 0;
+        Map<Long, String> failures = new HashMap<>();
+        for (int from = 0; from < rows.size(); from += FIREBASE_PUSH_CHUNK) {
+            PushOutcome chunk = pushChunkToFirebase(db, rows.subList(from, Math.min(from + FIREBASE_PUSH_CHUNK, rows.size())), force);
+            written += chunk.written();
+            failures.putAll(chunk.failures());
+            progress.advance(Math.min(FIREBASE_PUSH_CHUNK, rows.size() - from));
+        }
+        return new PushOutcome(written, failures);
+    }
+
+    private PushOutcome pushChunkToFirebase(Firestore db, List<SignalementReadModel> rows, boolean force) throws Exception {
+        CollectionReference collection = db.collection("roadworks_reports");
+        List<Long> ids = rows.stream().map(SignalementReadModel::getSignalementId).toList();
+        Map<Long, List<SignalementPhotoRef>> photoRefs = photoService.findRefsBySignalementIds(ids);
+
+        List<FirebasePush> pushes = transactionTemplate.execute(tx -> {
+            Map<Long, Signalement> signalements = repository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Signalement::getId, s -> s));
+            List<FirebasePush> changed = new ArrayList<>();
+            for (SignalementReadModel row : rows) {
+                Signalement signalement = signalements.get(row.getSignalementId());
+                if (signalement == null) {
+                    continue;
+                }
+                Map<String, Object> data = toFirebaseDocument(row);
+                String hash = firebasePushHash(data, photoRefs.getOrDefault(row.getSignalementId(), List.of()));
+                boolean isNew = signalement.getFirebaseId() == null || signalement.getFirebaseId().isEmpty();
+                if (!force && !isNew && hash.equals(signalement.getFirebasePushHash())) {
+                    continue;
+                }
+                if (isNew) {
+                    signalement.setFirebaseId(collection.document().getId());
+                    eventPublisher.publishEvent(new SignalementChangedEvent(signalement.getId()));
+                }
+                changed.add(new FirebasePush(signalement.getId(), collection.document(signalement.getFirebaseId()), data, hash));
             }
+            return changed;
+        });
+        System.out.println(pushes.size() + " signalement(s) à écrire sur " + rows.size() + " (les autres sont inchangés)");
+        if (pushes.isEmpty()) {
+            return new PushOutcome(0, Map.of());
+        }
 
-            // Ajouter les photos si elles existent
-            List<SignalementPhoto> photos = photoRepository.findBySignalementIdOrderByPhotoOrderAsc(signalementId);
+        // Les photos ne sont lues que pour les documents à écrire, en une requête pour tout le paquet
+        Map<Long, List<SignalementPhoto>> photosBySignalement = photoService.findBySignalementIds(
+                pushes.stream().map(FirebasePush::signalementId).toList());
+        String lastUpdated = Instant.now().toString();
+        for (FirebasePush push : pushes) {
+            push.data().put("lastUpdated", lastUpdated);
+            List<SignalementPhoto> photos = photosBySignalement.getOrDefault(push.signalementId(), List.of());
             if (!photos.isEmpty()) {
-                List<String> photoDataList = photos.stream()
-                        .map(SignalementPhoto::getPhotoData)
-                        .collect(Collectors.toList());
-                data.put("photos", photoDataList);
-                System.out.println("✓ " + photos.size() + " photo(s) ajoutée(s) à la synchronisation Firebase");
+                List<String> photoDataList = new ArrayList<>();
+                for (SignalementPhoto photo : photos) {
+                    photoDataList.add(photoService.toDataUrl(photo));
+                }
+                push.data().put("photos", photoDataList);
             }
+        }
 
-            // Si le signalement a un firebaseId, mettre à jour le document existant
-            // Sinon, créer un nouveau document
-            if (firebaseId != null && !firebaseId.isEmpty()) {
-                db.collection("roadworks_reports").document(firebaseId).set(data).get();
-            } else {
-                // Créer un nouveau document et sauvegarder son ID
-                var docRef = db.collection("roadworks_reports").add(data).get();
-                signalement.setFirebaseId(docRef.getId());
-                repository.save(signalement);
+        // Écritures en parallèle, sans la montée en charge progressive par défaut (500 écritures/s au départ)
+        BulkWriter writer = db.bulkWriter(BulkWriterOptions.builder().setThrottlingEnabled(false).build());
+        List<ApiFuture<WriteResult>> results = new ArrayList<>(pushes.size());
+        for (FirebasePush push : pushes) {
+            results.add(writer.set(push.document(), push.data(), SetOptions.merge()));
+        }
+        writer.close();
+
+        Map<Long, String> written = new HashMap<>();
+        Map<Long, String> failures = new HashMap<>();
+        for (int i = 0; i < pushes.size(); i++) {
+            FirebasePush push = pushes.get(i);
+            try {
+                results.get(i).get();
+                written.put(push.signalementId(), push.hash());
+            } catch (java.util.concurrent.ExecutionException e) {
+                System.err.println("✗ Erreur écriture Firestore du signalement " + push.signalementId() + ": " + e.getCause().getMessage());
+                failures.put(push.signalementId(), String.valueOf(e.getCause().getMessage()));
             }
+        }
 
-        } catch (Exception e) {
-            System.err.println("Erreur dans syncToFirebase: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+        // Empreinte enregistrée après l'écriture: un envoi échoué sera refait au prochain passage
+        transactionTemplate.executeWithoutResult(tx -> repository.findAllById(written.keySet())
+                .forEach(signalement -> signalement.setFirebasePushHash(written.get(signalement.getId()))));
+        return new PushOutcome(written.size(), failures);
+    }
+
+    // Document Firestore d'un signalement, au format lu par l'application mobile (sans photos ni lastUpdated)
+    private Map<String, Object> toFirebaseDocument(SignalementReadModel row) {
+        Double lat = row.getLatitude();
+        Double lng = row.getLongitude();
+        if (lat == null || lng == null) {
+            // Extraire lat et lng depuis location
+            String[] coords = row.getLocation().split(",");
+            lat = Double.parseDouble(coords[0].trim());
+            lng = Double.parseDouble(coords[1].trim());
+        }
+
+        // TreeMap: ordre des champs stable pour l'empreinte
+        Map<String, Object> data = new TreeMap<>();
+        data.put("description", row.getDescription());
+        data.put("lat", lat);
+        data.put("lng", lng);
+        data.put("status", row.getTypeProblem()); // Type de problème: pothole, accident, etc.
+        data.put("reportStatus", mobileReportStatus(row.getEtat())); // Statut: new, in_progress, completed
+        // createdAt sert de curseur à l'import incrémental
+        Instant createdAt = row.getDateProblem();
+        data.put("createdAt", com.google.cloud.Timestamp.ofTimeSecondsAndNanos(createdAt.getEpochSecond(), createdAt.getNano()));
+
+        // Ajouter les informations du dernier travail s'il existe
+        if (row.getCompanyId() != null) {
+            Map<String, Object> workData = new TreeMap<>();
+            workData.put("surface", row.getSurfaceM2() != null ? row.getSurfaceM2().doubleValue() : null);
+            workData.put("company", row.getCompanyName());
+            workData.put("companyId", row.getCompanyId());
+            workData.put("startDate", row.getWorkStartDate() != null ? row.getWorkStartDate().toString() : null);
+            workData.put("endDateEstimation", row.getWorkEndDateEstimation() != null ? row.getWorkEndDateEstimation().toString() : null);
+            workData.put("realEndDate", row.getWorkRealEndDate() != null ? row.getWorkRealEndDate().toString() : null);
+            workData.put("price", row.getBudget() != null ? row.getBudget().doubleValue() : null);
+            data.put("work", workData);
+        }
+        return data;
+    }
+
+    // Mapper le statut backend vers le format mobile
+    private String mobileReportStatus(String etat) {
+        if ("en_cours".equals(etat)) {
+            return "in_progress";
+        } else if ("terminé".equals(etat) || "resolu".equals(etat)) {
+            return "completed";
+        }
+        return "new";
+    }
+
+    // SHA-256 du document et de la liste des photos (une photo n'est jamais modifiée après sa création)
+    private String firebasePushHash(Map<String, Object> data, List<SignalementPhotoRef> photos) {
+        StringBuilder content = new StringBuilder(data.toString());
+        for (SignalementPhotoRef photo : photos) {
+            content.append('|').append(photo.getId());
+        }
+        try {
+            byte[] digest = java.security.MessageDigest.getInstance("SHA-256")
+                    .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return java.util.HexFormat.of().formatHex(digest);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
@@ -709,89 +1420,98 @@ public class SignalementService {
         }
 
         try {
-            ApiFuture<QuerySnapshot> query = db.collection("roadworks_reports").get();
-            QuerySnapshot querySnapshot = query.get(30, java.util.concurrent.TimeUnit.SECONDS);
-            System.out.println("Nombre de documents Firebase trouvés: " + querySnapshot.getDocuments().size());
-
-            List<Map<String, Object>> unsyncedSignalements = new java.util.ArrayList<>();
-
-            for (var document : querySnapshot.getDocuments()) {
-                String firebaseId = document.getId();
+            // Lecture par pages, sans les photos: seuls les champs affichés sont téléchargés
+            FirestorePager pager = new FirestorePager(db.collection("roadworks_reports")
+                    .select("description", "lat", "lng", "latitude", "longitude", "location", "status", "reportStatus", "timestamp")
+                    .orderBy(FieldPath.documentId()), syncBatchSize);
+
+            List<Map<String, Object>> unsyncedSignalements = new ArrayList<>();
+            // Toute la collection est comparée: un seul chargement des identifiants déjà importés
+            Set<String> existingFirebaseIds = repository.findAllFirebaseIds();
+            int read = 0;
+
+            while (pager.hasNext()) {
+                List<QueryDocumentSnapshot> documents = pager.next();
+                read += documents.size();
+                for (var document : documents) {
+                    String firebaseId = document.getId();
                 
-                // Vérifier si ce signalement a déjà été synchronisé
-                if (repository.findByFirebaseId(firebaseId).isPresent()) {
-                    // Déjà synchronisé, on l'ignore
-                    continue;
-                }
+                    // Vérifier si ce signalement a déjà été synchronisé
+                    if (existingFirebaseIds.contains(firebaseId)) {
+                        // Déjà synchronisé, on l'ignore
+                        continue;
+                    }
 
-                // Ce signalement n'est pas synchronisé, on le récupère
-                // DEBUG: Afficher tous les champs du document pour comprendre la structure
-                System.out.println("=== Document Firebase " + firebaseId + " ===");
-                System.out.println("Tous les champs: " + document.getData());
+                    // Ce signalement n'est pas synchronisé, on le récupère
+                    // DEBUG: Afficher tous les champs du document pour comprendre la structure
+                    System.out.println("=== Document Firebase " + firebaseId + " ===");
+                    System.out.println("Tous les champs: " + document.getData());
 
-                String description = document.getString("description");
-                // Support de plusieurs formats de coordonnées
-                Double lat = document.getDouble("lat");
-                if (lat == null) {
-                    lat = document.getDouble("latitude");
-                }
-                // Essayer aussi avec "location" qui pourrait être un objet
-                if (lat == null && document.get("location") != null) {
-                    try {
-                        Map<String, Object> location = (Map<String, Object>) document.get("location");
-                        if (location != null) {
-                            Object latObj = location.get("lat");
-                            if (latObj == null) latObj = location.get("latitude");
-                            if (latObj instanceof Number) {
-                                lat = ((Number) latObj).doubleValue();
+                    String description = document.getString("description");
+                    // Support de plusieurs formats de coordonnées
+                    Double lat = document.getDouble("lat");
+                    if (lat == null) {
+                        lat = document.getDouble("latitude");
+                    }
+                    // Essayer aussi avec "location" qui pourrait être un objet
+                    if (lat == null && document.get("location") != null) {
+                        try {
+                            Map<String, Object> location = (Map<String, Object>) document.get("location");
+                            if (location != null) {
+                                Object latObj = location.get("lat");
+                                if (latObj == null) latObj = location.get("latitude");
+                                if (latObj instanceof Number) {
+                                    lat = ((Number) latObj).doubleValue();
+                                }
                             }
+                        } catch (Exception e) {
+                            System.out.println("  location n'est pas un objet Map");
                         }
-                    } catch (Exception e) {
-                        System.out.println("  location n'est pas un objet Map");
                     }
-                }
 
-                Double lng = document.getDouble("lng");
-                if (lng == null) {
-                    lng = document.getDouble("longitude");
-                }
-                if (lng == null && document.get("location") != null) {
-                    try {
-                        Map<String, Object> location = (Map<String, Object>) document.get("location");
-                        if (location != null) {
-                            Object lngObj = location.get("lng");
-                            if (lngObj == null) lngObj = location.get("longitude");
-                            if (lngObj == null) lngObj = location.get("lon");
-                            if (lngObj instanceof Number) {
-                                lng = ((Number) lngObj).doubleValue();
+                    Double lng = document.getDouble("lng");
+                    if (lng == null) {
+                        lng = document.getDouble("longitude");
+                    }
+                    if (lng == null && document.get("location") != null) {
+                        try {
+                            Map<String, Object> location = (Map<String, Object>) document.get("location");
+                            if (location != null) {
+                                Object lngObj = location.get("lng");
+                                if (lngObj == null) lngObj = location.get("longitude");
+                                if (lngObj == null) lngObj = location.get("lon");
+                                if (lngObj instanceof Number) {
+                                    lng = ((Number) lngObj).doubleValue();
+                                }
                             }
+                        } catch (Exception e) {
+                            System.out.println("  location n'est pas un objet Map");
                         }
-                    } catch (Exception e) {
-                        System.out.println("  location n'est pas un objet Map");
                     }
-                }
 
-                String status = document.getString("status"); // Type de problème
-                String reportStatus = document.getString("reportStatus"); // État du signalement
-                Object timestamp = document.get("timestamp");
-
-                System.out.println("  Coordonnées extraites - lat: " + lat + ", lng: " + lng);
-
-                if (lat != null && lng != null) {
-                    Map<String, Object> signalementData = new java.util.HashMap<>();
-                    signalementData.put("firebaseId", firebaseId);
-                    signalementData.put("description", description != null ? description : "Aucune description");
-                    signalementData.put("lat", lat);
-                    signalementData.put("lng", lng);
-                    signalementData.put("typeProblem", status != null ? status : "other");
-                    signalementData.put("reportStatus", reportStatus != null ? reportStatus : "new");
-                    signalementData.put("timestamp", timestamp);
-                    signalementData.put("isSynced", false); // Marqueur pour le frontend
+                    String status = document.getString("status"); // Type de problème
+                    String reportStatus = document.getString("reportStatus"); // État du signalement
+                    Object timestamp = document.get("timestamp");
+
+                    System.out.println("  Coordonnées extraites - lat: " + lat + ", lng: " + lng);
+
+                    if (lat != null && lng != null) {
+                        Map<String, Object> signalementData = new java.util.HashMap<>();
+                        signalementData.put("firebaseId", firebaseId);
+                        signalementData.put("description", description != null ? description : "Aucune description");
+                        signalementData.put("lat", lat);
+                        signalementData.put("lng", lng);
+                        signalementData.put("typeProblem", status != null ? status : "other");
+                        signalementData.put("reportStatus", reportStatus != null ? reportStatus : "new");
+                        signalementData.put("timestamp", timestamp);
+                        signalementData.put("isSynced", false); // Marqueur pour le frontend
                     
-                    unsyncedSignalements.add(signalementData);
+                        unsyncedSignalements.add(signalementData);
+                    }
                 }
             }
 
+            System.out.println("Nombre de documents Firebase lus: " + read);
             System.out.println("Nombre de signalements non synchronisés: " + unsyncedSignalements.size());
             return unsyncedSignalements;
 
@@ -803,20 +1523,19 @@ public class SignalementService {
     }
 
     /**
-     * Récupère toutes les photos d'un signalement par son ID.
+     * Récupère les métadonnées des photos d'un signalement par son ID.
+     * Le contenu est servi séparément par l'URL de chaque photo (miniature si une taille est demandée).
      */
-    public List<SignalementPhotoDto> getPhotosBySignalementId(Long signalementId) throws Exception {
+    public List<SignalementPhotoDto> getPhotosBySignalementId(Long signalementId, Integer size) throws Exception {
         // Vérifier que le signalement existe
         repository.findById(signalementId)
                 .orElseThrow(() -> new Exception("Signalement non trouvé avec l'ID: " + signalementId));
 
-        List<SignalementPhoto> photos = photoRepository.findBySignalementIdOrderByPhotoOrderAsc(signalementId);
-
-        return photos.stream()
+        return photoService.findRefs(signalementId).stream()
                 .map(photo -> SignalementPhotoDto.builder()
                         .id(photo.getId())
                         .signalementId(signalementId)
-                        .photoData(photo.getPhotoData())
+                        .url(PhotoService.photoUrl(signalementId, photo.getId(), size))
                         .photoOrder(photo.getPhotoOrder())
                         .createdAt(photo.getCreatedAt())
                         .build())
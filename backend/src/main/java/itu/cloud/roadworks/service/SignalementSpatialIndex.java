@@ -0,0 +1,258 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.dto.SignalementMarkerDto;
+import itu.cloud.roadworks.model.SignalementReadModel;
+import itu.cloud.roadworks.repository.SignalementReadModelRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index spatial en mémoire des signalements actifs (ni terminés ni annulés), sur une grille
+ * de cellules de taille fixe en degrés. Répond aux requêtes par zone sans interroger Postgres.
+ * Alimenté par le modèle de lecture, une fois le changement d'un signalement validé.
+ * Les lectures ne prennent pas de verrou; les écritures (rares) sont sérialisées et répercutées
+ * sur la grille de groupes {@link SignalementClusterIndex}. Un rechargement construit une nouvelle grille
+ * puis la substitue d'un coup: une requête pendant la reconstruction voit l'ancienne grille complète.
+ * Chaque signalement garde la version de changement de la ligne appliquée: une ligne plus ancienne,
+ * lue par un rafraîchissement concurrent, n'écrase pas une plus récente.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignalementSpatialIndex {
+
+    public static final Set<String> INACTIVE_STATUSES = Set.of("terminé", "annulé");
+
+    private final SignalementReadModelRepository repository;
+    private final SignalementClusterIndex clusterIndex;
+
+    // ~1,1 km à l'équateur: une vue de quartier couvre quelques dizaines de cellules
+    @Value("${signalement.spatial.cell-size-degrees:0.01}")
+    private double cellSize;
+
+    // Version des signalements supprimés: aucune ligne lue avant la suppression ne peut les remettre
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private record Grid(Map<Long, SignalementMarkerDto> byId, Map<Long, Map<Long, SignalementMarkerDto>> cells) {
+        static Grid empty() {
+            return new Grid(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private volatile Grid grid = Grid.empty();
+
+    // Dernière version appliquée par signalement (actif ou non); lue et écrite sous le verrou
+    private Map<Long, Long> versions = new HashMap<>();
+
+    /**
+     * Zone rectangulaire (bbox) au format "minLng,minLat,maxLng,maxLat". Les valeurs non finies sont refusées;
+     * les latitudes sont ramenées dans [-90, 90] et les longitudes dans [-180, 180].
+     */
+    public record BoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+
+        public static BoundingBox parse(String bbox) {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("bbox invalide, format attendu: minLng,minLat,maxLng,maxLat");
+            }
+            try {
+                double minLng = Double.parseDouble(parts[0].trim());
+                double minLat = Double.parseDouble(parts[1].trim());
+                double maxLng = Double.parseDouble(parts[2].trim());
+                double maxLat = Double.parseDouble(parts[3].trim());
+                if (!Double.isFinite(minLng) || !Double.isFinite(minLat)
+                        || !Double.isFinite(maxLng) || !Double.isFinite(maxLat)) {
+                    throw new IllegalArgumentException("bbox invalide: coordonnées non finies");
+                }
+                if (minLat > maxLat || minLng > maxLng) {
+                    throw new IllegalArgumentException("bbox invalide: min supérieur à max");
+                }
+                return new BoundingBox(clamp(minLat, 90), clamp(minLng, 180), clamp(maxLat, 90), clamp(maxLng, 180));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bbox invalide: " + bbox);
+            }
+        }
+
+        private static double clamp(double degrees, double limit) {
+            return Math.max(-limit, Math.min(limit, degrees));
+        }
+
+        public boolean contains(double lat, double lng) {
+            return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        Grid rebuilt = Grid.empty();
+        Map<Long, Long> rebuiltVersions = new HashMap<>();
+        versions.forEach((id, version) -> {
+            if (version == DELETED) {
+                rebuiltVersions.put(id, DELETED);
+            }
+        });
+        for (SignalementReadModel row : repository.findByLatitudeIsNotNullAndLongitudeIsNotNull()) {
+            if (rebuiltVersions.get(row.getSignalementId()) == null) {
+                rebuiltVersions.put(row.getSignalementId(), row.getChangeVersion());
+                SignalementMarkerDto marker = toMarker(row);
+                if (marker != null) {
+                    add(rebuilt, marker);
+                }
+            }
+        }
+        clusterIndex.replaceAll(rebuilt.byId().values());
+        grid = rebuilt;
+        versions = rebuiltVersions;
+        log.info("Index spatial chargé: {} signalement(s) actif(s) en {} ms", rebuilt.byId().size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Recharge un signalement depuis le modèle de lecture après le commit de son changement
+     * (le projecteur a déjà mis sa ligne à jour).
+     */
+    @Order(1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSignalementChanged(SignalementChangedEvent event) {
+        refresh(event.signalementId());
+    }
+
+    // Signalement absent du modèle de lecture: supprimé
+    public void refresh(Long signalementId) {
+        repository.findById(signalementId)
+                .ifPresentOrElse(this::put, () -> delete(signalementId));
+    }
+
+    /**
+     * Applique une ligne du modèle de lecture, sauf si une version plus récente l'a déjà été.
+     */
+    public synchronized void put(SignalementReadModel row) {
+        Long applied = versions.get(row.getSignalementId());
+        if (applied != null && row.getChangeVersion() != null && applied > row.getChangeVersion()) {
+            return;
+        }
+        if (row.getChangeVersion() != null) {
+            versions.put(row.getSignalementId(), row.getChangeVersion());
+        }
+        Grid current = grid;
+        removeMarker(current, row.getSignalementId());
+        SignalementMarkerDto marker = toMarker(row);
+        if (marker != null) {
+            add(current, marker);
+            clusterIndex.add(marker);
+        }
+    }
+
+    private synchronized void delete(Long signalementId) {
+        versions.put(signalementId, DELETED);
+        removeMarker(grid, signalementId);
+    }
+
+    // null si le signalement n'a pas sa place dans l'index (sans position, terminé ou annulé)
+    private static SignalementMarkerDto toMarker(SignalementReadModel row) {
+        if (row.getLatitude() == null || row.getLongitude() == null
+                || (row.getEtat() != null && INACTIVE_STATUSES.contains(row.getEtat()))) {
+            return null;
+        }
+        return SignalementMarkerDto.builder()
+                .id(row.getSignalementId())
+                .latitude(row.getLatitude())
+                .longitude(row.getLongitude())
+                .typeProblem(row.getTypeProblem())
+                .illustrationProblem(row.getIllustrationProblem())
+                .etat(row.getEtat())
+                .build();
+    }
+
+    private void add(Grid target, SignalementMarkerDto marker) {
+        target.byId().put(marker.getId(), marker);
+        target.cells().computeIfAbsent(cellKey(cellOf(marker.getLatitude()), cellOf(marker.getLongitude())),
+                key -> new ConcurrentHashMap<>()).put(marker.getId(), marker);
+    }
+
+    private void removeMarker(Grid target, Long signalementId) {
+        SignalementMarkerDto previous = target.byId().remove(signalementId);
+        if (previous != null) {
+            removeFromCell(target, previous);
+            clusterIndex.remove(previous);
+        }
+    }
+
+    /**
+     * Signalements actifs dont la position est dans la zone.
+     */
+    public List<SignalementMarkerDto> query(BoundingBox box) {
+        Grid current = grid;
+        Map<Long, SignalementMarkerDto> byId = current.byId();
+        Map<Long, Map<Long, SignalementMarkerDto>> cells = current.cells();
+        long minRow = cellOf(box.minLat());
+        long maxRow = cellOf(box.maxLat());
+        long minCol = cellOf(box.minLng());
+        long maxCol = cellOf(box.maxLng());
+
+        List<SignalementMarkerDto> result = new ArrayList<>();
+        // Zone très large (vue pays): parcourir les entrées coûte moins que parcourir les cellules vides.
+        // Nombre de cellules calculé en double: un produit en long peut déborder (zone construite hors parse)
+        double cellCount = ((double) maxRow - minRow + 1) * ((double) maxCol - minCol + 1);
+        if (!(cellCount <= byId.size())) {
+            for (SignalementMarkerDto marker : byId.values()) {
+                if (box.contains(marker.getLatitude(), marker.getLongitude())) {
+                    result.add(marker);
+                }
+            }
+            return result;
+        }
+
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                Map<Long, SignalementMarkerDto> cell = cells.get(cellKey(row, col));
+                if (cell == null) {
+                    continue;
+                }
+                for (SignalementMarkerDto marker : cell.values()) {
+                    if (box.contains(marker.getLatitude(), marker.getLongitude())) {
+                        result.add(marker);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return grid.byId().size();
+    }
+
+    private void removeFromCell(Grid target, SignalementMarkerDto marker) {
+        long key = cellKey(cellOf(marker.getLatitude()), cellOf(marker.getLongitude()));
+        Map<Long, SignalementMarkerDto> cell = target.cells().get(key);
+        if (cell != null) {
+            cell.remove(marker.getId());
+            if (cell.isEmpty()) {
+                target.cells().remove(key);
+            }
+        }
+    }
+
+    private long cellOf(double degrees) {
+        return (long) Math.floor(degrees / cellSize);
+    }
+
+    private static long cellKey(long row, long col) {
+        return (row << 32) ^ (col & 0xFFFFFFFFL);
+    }
+}
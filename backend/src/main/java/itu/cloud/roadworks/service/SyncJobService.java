@@ -0,0 +1,203 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.dto.SyncJobDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synchronisations avec Firebase exécutées en arrière-plan: la requête HTTP rend la main tout de suite
+ * avec l'identifiant du travail, dont l'avancement se suit par GET /api/signalements/sync/jobs/{id}.
+ * Une seule exécution par type de travail: une demande reçue pendant qu'un travail du même type est en attente
+ * ou en cours est rattachée à ce travail au lieu d'en lancer un second.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncJobService {
+
+    public enum Kind {
+        IMPORT("import"),
+        EXPORT("export"),
+        STATUS("status");
+
+        private final String value;
+
+        Kind(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public enum State {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    // Travaux terminés conservés pour la consultation de leur résultat
+    private static final int HISTORY_SIZE = 50;
+
+    private final SignalementService signalementService;
+
+    @Value("${firebase.sync.jobs.import-full-on-schedule:false}")
+    private boolean fullImportOnSchedule;
+
+    private ExecutorService executor;
+
+    private final Map<Kind, Job> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > HISTORY_SIZE && eldest.getValue().state != State.PENDING
+                    && eldest.getValue().state != State.RUNNING;
+        }
+    };
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        // Un thread par type de travail: un import ne retarde pas un export
+        executor = Executors.newFixedThreadPool(Kind.values().length, runnable -> {
+            Thread thread = new Thread(runnable, "firebase-sync-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Lance un travail, ou retourne celui du même type déjà en attente ou en cours.
+     * @param full import seulement: relire toute la collection (ignoré si un import est déjà en cours)
+     */
+    public SyncJobDto submit(Kind kind, boolean full, String trigger) {
+        Job job = inFlight.computeIfAbsent(kind, k -> {
+            Job created = new Job(UUID.randomUUID().toString(), k, k == Kind.IMPORT && full, trigger);
+            synchronized (jobs) {
+                jobs.put(created.id, created);
+            }
+            executor.execute(() -> run(created));
+            return created;
+        });
+        return job.toDto();
+    }
+
+    public Optional<SyncJobDto> find(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(Job::toDto);
+        }
+    }
+
+    // Du plus récent au plus ancien
+    public List<SyncJobDto> findRecent() {
+        List<SyncJobDto> recent = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> recent.add(0, job.toDto()));
+        }
+        return recent;
+    }
+
+    /**
+     * Import périodique depuis Firebase, désactivé par défaut (firebase.sync.jobs.import-cron=-).
+     */
+    @Scheduled(cron = "${firebase.sync.jobs.import-cron:-}")
+    public void scheduledImport() {
+        submit(Kind.IMPORT, fullImportOnSchedule, "schedule");
+    }
+
+    private void run(Job job) {
+        job.startedAt = Instant.now();
+        job.state = State.RUNNING;
+        try {
+            job.result = switch (job.kind) {
+                case IMPORT -> signalementService.syncFromFirebase(job.full, job);
+                case EXPORT -> signalementService.exportLocalSignalementsToFirebase(job);
+                case STATUS -> signalementService.syncAllStatusToFirebase(job);
+            };
+            job.state = State.SUCCEEDED;
+        } catch (Exception e) {
+            log.error("Synchronisation Firebase {} ({}) en échec: {}", job.kind.getValue(), job.id, e.getMessage(), e);
+            job.error = e.getMessage();
+            job.state = State.FAILED;
+        } finally {
+            job.finishedAt = Instant.now();
+            // Les demandes suivantes lancent un nouveau travail
+            inFlight.remove(job.kind, job);
+            log.info("Synchronisation Firebase {} ({}) terminée: {} en {} ms", job.kind.getValue(), job.id, job.state,
+                    job.finishedAt.toEpochMilli() - job.startedAt.toEpochMilli());
+        }
+    }
+
+    // Écrit par le thread du travail, lu par les requêtes de suivi
+    private static final class Job implements SyncProgress {
+        private final String id;
+        private final Kind kind;
+        private final boolean full;
+        private final String trigger;
+        private final Instant requestedAt = Instant.now();
+        private final AtomicLong processed = new AtomicLong();
+        private volatile Long total;
+        private volatile State state = State.PENDING;
+        private volatile Integer result;
+        private volatile String error;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        private Job(String id, Kind kind, boolean full, String trigger) {
+            this.id = id;
+            this.kind = kind;
+            this.full = full;
+            this.trigger = trigger;
+        }
+
+        @Override
+        public void total(long total) {
+            this.total = total;
+        }
+
+        @Override
+        public void advance(long processed) {
+            this.processed.addAndGet(processed);
+        }
+
+        SyncJobDto toDto() {
+            return SyncJobDto.builder()
+                    .id(id)
+                    .kind(kind.getValue())
+                    .full(full)
+                    .state(state.name())
+                    .trigger(trigger)
+                    .total(total)
+                    .processed(processed.get())
+                    .result(result)
+                    .error(error)
+                    .requestedAt(requestedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
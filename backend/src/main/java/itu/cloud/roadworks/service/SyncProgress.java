@@ -0,0 +1,22 @@
+package itu.cloud.roadworks.service;
+
+/**
+ * Avancement d'une synchronisation avec Firebase, suivi par SyncJobService.
+ */
+public interface SyncProgress {
+
+    SyncProgress NONE = new SyncProgress() {
+        @Override
+        public void total(long total) {
+        }
+
+        @Override
+        public void advance(long processed) {
+        }
+    };
+
+    // Nombre d'éléments à traiter, quand il est connu avant de commencer
+    void total(long total);
+
+    void advance(long processed);
+}
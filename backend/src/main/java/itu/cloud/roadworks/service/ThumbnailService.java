@@ -0,0 +1,265 @@
+package itu.cloud.roadworks.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Génère en arrière-plan les miniatures JPEG des photos (plusieurs tailles, côté le plus long en pixels)
+ * et les range dans le PhotoStorage à côté de l'original.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private final PhotoStorage photoStorage;
+
+    @Value("${photo.thumbnail.sizes:64,256,512}")
+    private int[] sizes;
+
+    @Value("${photo.thumbnail.threads:2}")
+    private int threads;
+
+    @Value("${photo.thumbnail.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${photo.thumbnail.quality:0.8}")
+    private float quality;
+
+    // Dimensions lues dans l'en-tête avant tout décodage: une image plus grande n'est pas traitée
+    @Value("${photo.thumbnail.max-pixels:50000000}")
+    private long maxPixels;
+
+    private ThreadPoolExecutor executor;
+
+    // Génération en cours ou en file par contenu: les demandes pour le même contenu (photos dédupliquées,
+    // plusieurs tailles demandées en même temps) partagent la même génération
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    // Contenus qu'ImageIO ne sait pas décoder ou trop grands: un contenu ne change jamais, l'échec n'est pas retenté
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        Arrays.sort(sizes);
+        AtomicInteger counter = new AtomicInteger();
+        // Pool borné: au-delà de la file, la génération est abandonnée et sera refaite à la demande
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Taille de miniature à servir pour une taille demandée: la plus petite taille générée
+     * qui couvre la demande, ou null si seul l'original convient.
+     */
+    public Integer resolveSize(Integer requested) {
+        if (requested == null) {
+            return null;
+        }
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return null;
+    }
+
+    public String thumbnailKey(String hash, int size) {
+        return photoStorage.variantKey(hash, String.valueOf(size));
+    }
+
+    public boolean isUnsupported(String hash) {
+        return unsupported.contains(hash);
+    }
+
+    /**
+     * Planifie la génération des miniatures d'un contenu du stockage. Ne bloque jamais l'appelant.
+     * @return la génération (partagée avec les demandes en cours pour le même contenu), terminée en échec
+     * si la file est pleine
+     */
+    public CompletableFuture<Void> generateAsync(String hash) {
+        if (hash == null || unsupported.contains(hash)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = pending.putIfAbsent(hash, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(hash);
+                    created.complete(null);
+                } catch (Exception e) {
+                    log.warn("Miniatures non générées pour {}: {}", hash, e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    pending.remove(hash, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash, created);
+            log.warn("File des miniatures pleine, génération différée pour {}", hash);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Génère les miniatures sur le pool et attend au plus timeoutMillis.
+     * @return false si elles ne sont pas prêtes à temps ou n'ont pas pu être générées
+     */
+    public boolean awaitGenerated(String hash, long timeoutMillis) {
+        try {
+            generateAsync(hash).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Génère les miniatures manquantes d'un contenu du stockage.
+     */
+    public void generate(String hash) throws IOException {
+        boolean missing = false;
+        for (int size : sizes) {
+            if (!photoStorage.exists(thumbnailKey(hash, size))) {
+                missing = true;
+                break;
+            }
+        }
+        if (!missing) {
+            return;
+        }
+
+        BufferedImage source;
+        try {
+            source = decode(photoStorage.read(hash));
+        } catch (IOException e) {
+            unsupported.add(hash);
+            throw e;
+        }
+
+        for (int size : sizes) {
+            String key = thumbnailKey(hash, size);
+            if (!photoStorage.exists(key)) {
+                photoStorage.storeVariant(hash, String.valueOf(size), toJpeg(resize(source, size)));
+            }
+        }
+    }
+
+    /**
+     * Décode l'image sous-échantillonnée: son plus grand côté reste au moins égal à la plus grande miniature,
+     * sans allouer l'image en pleine résolution. Les dimensions sont vérifiées avant le décodage.
+     */
+    private BufferedImage decode(byte[] original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("format d'image non supporté");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("image trop grande (" + width + "x" + height + ")");
+                }
+                int step = Math.max(1, Math.max(width, height) / sizes[sizes.length - 1]);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int maxSide) {
+        double scale = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // Fond blanc: le JPEG ne gère pas la transparence des PNG
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,163 @@
+package itu.cloud.roadworks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import itu.cloud.roadworks.api.SignalementApi;
+import itu.cloud.roadworks.config.ContentNegotiationConfig;
+import itu.cloud.roadworks.dto.SignalementProblemDto;
+import itu.cloud.roadworks.service.PhotoService;
+import itu.cloud.roadworks.service.SecurityLogService;
+import itu.cloud.roadworks.service.SignalementExportService;
+import itu.cloud.roadworks.service.SignalementService;
+import itu.cloud.roadworks.service.SyncJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Négociation de contenu des lectures de signalements: CBOR sur demande, avec la même configuration
+ * Jackson que le JSON (dates ISO-8601), JSON par défaut, Vary: Accept et ETag propre à chaque encodage.
+ * Sans base de données.
+ */
+@WebMvcTest(SignalementApi.class)
+@Import(ContentNegotiationConfig.class)
+class ContentNegotiationTest {
+
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private SignalementService signalementService;
+	@MockBean
+	private PhotoService photoService;
+	@MockBean
+	private SignalementExportService exportService;
+	@MockBean
+	private SyncJobService syncJobService;
+	@MockBean
+	private SecurityLogService securityLogService;
+
+	@Test
+	void cborResponseRoundTripsTheSignalement() throws Exception {
+		SignalementProblemDto signalement = sample();
+		when(signalementService.findProblemById(1L)).thenReturn(signalement);
+
+		MvcResult result = mockMvc.perform(get("/api/signalements/1").accept(CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(CBOR))
+				.andReturn();
+
+		JsonNode decoded = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray());
+		JsonNode expected = objectMapper.valueToTree(signalement);
+		assertTrue(expected.equals(SAME_VALUE, decoded), "CBOR décodé: " + decoded + ", attendu: " + expected);
+		assertEquals("2025-01-01T08:00:00Z", decoded.path("detail").path("dateProblem").asText());
+	}
+
+	@Test
+	void negotiatedResponsesVaryByAccept() throws Exception {
+		when(signalementService.findProblemById(1L)).thenReturn(sample());
+
+		mockMvc.perform(get("/api/signalements/1").accept(CBOR))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+		mockMvc.perform(get("/api/signalements/1").accept(MediaType.APPLICATION_JSON))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void listEtagDependsOnTheEncoding() throws Exception {
+		when(signalementService.currentChangeVersion()).thenReturn(42L);
+		when(signalementService.findAllProblems()).thenReturn(List.of(sample()));
+
+		mockMvc.perform(get("/api/signalements").accept(CBOR))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"signalements-42-cbor\""))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+		mockMvc.perform(get("/api/signalements").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"signalements-42-json\""));
+
+		// L'ETag d'un corps CBOR ne revalide pas une demande JSON
+		mockMvc.perform(get("/api/signalements").accept(MediaType.APPLICATION_JSON)
+						.header(HttpHeaders.IF_NONE_MATCH, "\"signalements-42-cbor\""))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/signalements").accept(CBOR)
+						.header(HttpHeaders.IF_NONE_MATCH, "\"signalements-42-cbor\""))
+				.andExpect(status().isNotModified())
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void jsonRemainsTheDefault() throws Exception {
+		when(signalementService.findProblemById(1L)).thenReturn(sample());
+
+		mockMvc.perform(get("/api/signalements/1").accept(MediaType.ALL))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
+
+	// Les nombres sont comparés par valeur: CBOR et l'arbre Jackson ne choisissent pas les mêmes types de noeuds
+	private static final Comparator<JsonNode> SAME_VALUE = (a, b) -> {
+		if (a.isNumber() && b.isNumber()) {
+			return a.decimalValue().compareTo(b.decimalValue());
+		}
+		return a.equals(b) ? 0 : 1;
+	};
+
+	private static SignalementProblemDto sample() {
+		SignalementProblemDto.CompanyDto company = SignalementProblemDto.CompanyDto.builder()
+				.id(3L)
+				.name("Entreprise 3")
+				.build();
+		return SignalementProblemDto.builder()
+				.id(1L)
+				.typeProblem("pothole")
+				.illustrationProblem("⚠️")
+				.location("-18.91,47.52")
+				.detail(SignalementProblemDto.SignalementProblemDetail.builder()
+						.etat("en_cours")
+						.dateProblem(Instant.parse("2025-01-01T08:00:00Z"))
+						.surfaceM2(new BigDecimal("12.50"))
+						.budget(new BigDecimal("150000.00"))
+						.entrepriseAssign(company)
+						.description("Nid de poule profond sur la voie principale")
+						.build())
+				.work(SignalementProblemDto.WorkInfo.builder()
+						.startDate("2025-01-03")
+						.price(new BigDecimal("150000.00"))
+						.company(company)
+						.build())
+				.photoCount(1)
+				.photos(List.of(SignalementProblemDto.PhotoRef.builder()
+						.id(7L)
+						.url("/api/signalements/1/photos/7")
+						.thumbnailUrl("/api/signalements/1/photos/7?size=256")
+						.build()))
+				.build();
+	}
+}
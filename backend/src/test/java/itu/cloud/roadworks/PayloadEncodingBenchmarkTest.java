@@ -0,0 +1,118 @@
+package itu.cloud.roadworks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import itu.cloud.roadworks.dto.SignalementProblemDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compare JSON, CBOR et Smile sur une liste de signalements typique de GET /api/signalements:
+ * octets envoyés (bruts et gzip) et temps CPU d'encodage et de décodage. Sans base de données.
+ * Exclu de mvn test; à lancer avec: mvn test -Dsurefire.excludedGroups= -Dgroups=benchmark
+ */
+@Tag("benchmark")
+class PayloadEncodingBenchmarkTest {
+
+	private static final Logger log = LoggerFactory.getLogger(PayloadEncodingBenchmarkTest.class);
+
+	private static final int SIGNALEMENTS = 2_000;
+	private static final int WARMUP = 20;
+	private static final int ROUNDS = 50;
+
+	@Test
+	void compareEncodings() throws IOException {
+		List<SignalementProblemDto> payload = samplePayload();
+
+		ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+		ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+		ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+
+		Result jsonResult = measure("json", json, payload);
+		Result cborResult = measure("cbor", cbor, payload);
+		Result smileResult = measure("smile", smile, payload);
+
+		for (Result result : List.of(jsonResult, cborResult, smileResult)) {
+			log.info("{}: {} octets ({} gzip), encodage {} µs, décodage {} µs", result.name(), result.bytes(),
+					result.gzipBytes(), result.encodeMicros(), result.decodeMicros());
+		}
+	}
+
+	private record Result(String name, int bytes, int gzipBytes, long encodeMicros, long decodeMicros) {
+	}
+
+	private Result measure(String name, ObjectMapper mapper, List<SignalementProblemDto> payload) throws IOException {
+		byte[] encoded = mapper.writeValueAsBytes(payload);
+		// Le décodage doit restituer toute la liste
+		assertEquals(payload.size(), mapper.readTree(encoded).size());
+
+		for (int i = 0; i < WARMUP; i++) {
+			mapper.readTree(mapper.writeValueAsBytes(payload));
+		}
+
+		long encodeNanos = 0;
+		long decodeNanos = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			byte[] bytes = mapper.writeValueAsBytes(payload);
+			encodeNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			mapper.readTree(bytes);
+			decodeNanos += System.nanoTime() - start;
+		}
+		return new Result(name, encoded.length, gzip(encoded).length,
+				encodeNanos / ROUNDS / 1_000, decodeNanos / ROUNDS / 1_000);
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	private static List<SignalementProblemDto> samplePayload() {
+		String[] types = {"pothole", "flooding", "crack", "accident", "other"};
+		String[] statuses = {"nouveau", "en_cours", "terminé"};
+		Instant base = Instant.parse("2025-01-01T08:00:00Z");
+
+		List<SignalementProblemDto> payload = new ArrayList<>(SIGNALEMENTS);
+		for (long id = 1; id <= SIGNALEMENTS; id++) {
+			boolean assigned = id % 3 != 0;
+			payload.add(SignalementProblemDto.builder()
+					.id(id)
+					.typeProblem(types[(int) (id % types.length)])
+					.illustrationProblem("⚠️")
+					.location((-18.9 + id * 0.0001) + "," + (47.5 + id * 0.0001))
+					.detail(SignalementProblemDto.SignalementProblemDetail.builder()
+							.etat(statuses[(int) (id % statuses.length)])
+							.dateProblem(base.plusSeconds(id * 3_600))
+							.surfaceM2(BigDecimal.valueOf(id % 50 + 0.5))
+							.budget(assigned ? BigDecimal.valueOf(150_000 + id * 10) : null)
+							.entrepriseAssign(assigned
+									? SignalementProblemDto.CompanyDto.builder().id(id % 7 + 1).name("Entreprise " + (id % 7 + 1)).build()
+									: null)
+							.description("Nid de poule profond sur la voie principale, signalé par un riverain")
+							.build())
+					.photoCount((int) (id % 3))
+					.build());
+		}
+		return payload;
+	}
+}
@@ -0,0 +1,80 @@
+package itu.cloud.roadworks.service;
+
+import itu.cloud.roadworks.dto.SignalementMarkerDto;
+import itu.cloud.roadworks.model.SignalementReadModel;
+import itu.cloud.roadworks.repository.SignalementReadModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Requêtes par zone de l'index spatial, y compris les bbox extrêmes envoyées par un client. Sans Spring.
+ */
+class SignalementSpatialIndexTest {
+
+	private SignalementSpatialIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new SignalementSpatialIndex(mock(SignalementReadModelRepository.class), new SignalementClusterIndex(18));
+		ReflectionTestUtils.setField(index, "cellSize", 0.01);
+		index.put(row(1L, -18.91, 47.52));
+		index.put(row(2L, -18.95, 47.55));
+		index.put(row(3L, 48.85, 2.35));
+	}
+
+	@Test
+	void queryReturnsTheMarkersInsideTheBox() {
+		assertEquals(List.of(1L, 2L), ids(index.query(SignalementSpatialIndex.BoundingBox.parse("47.5,-19,47.6,-18.9"))));
+		assertEquals(List.of(1L), ids(index.query(SignalementSpatialIndex.BoundingBox.parse("47.51,-18.92,47.53,-18.90"))));
+	}
+
+	@Test
+	void parseRejectsNonFiniteValues() {
+		for (String bbox : List.of("0,0,Infinity,1", "-Infinity,0,1,1", "0,NaN,1,1", "0,0,1,1e400")) {
+			assertThrows(IllegalArgumentException.class, () -> SignalementSpatialIndex.BoundingBox.parse(bbox), bbox);
+		}
+	}
+
+	@Test
+	void parseClampsToTheValidRange() {
+		SignalementSpatialIndex.BoundingBox box = SignalementSpatialIndex.BoundingBox.parse("-1e300,-1e300,1e300,1e300");
+		assertEquals(new SignalementSpatialIndex.BoundingBox(-90, -180, 90, 180), box);
+	}
+
+	@Test
+	void hugeBoxesTerminate() {
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			assertEquals(List.of(1L, 2L, 3L), ids(index.query(SignalementSpatialIndex.BoundingBox.parse("-1e300,-1e300,1e300,1e300"))));
+			assertEquals(List.of(1L, 2L, 3L), ids(index.query(SignalementSpatialIndex.BoundingBox.parse("-180,-90,180,90"))));
+			// Zones construites sans parse: le nombre de cellules ne doit pas déborder
+			assertEquals(List.of(1L, 2L, 3L), ids(index.query(new SignalementSpatialIndex.BoundingBox(
+					-1e300, -1e300, 1e300, 1e300))));
+			assertEquals(List.of(), ids(index.query(new SignalementSpatialIndex.BoundingBox(
+					0, 0, 1, Double.POSITIVE_INFINITY))));
+		});
+	}
+
+	private static List<Long> ids(List<SignalementMarkerDto> markers) {
+		return markers.stream().map(SignalementMarkerDto::getId).sorted().toList();
+	}
+
+	private static SignalementReadModel row(Long id, double latitude, double longitude) {
+		return SignalementReadModel.builder()
+				.signalementId(id)
+				.typeProblem("pothole")
+				.etat("nouveau")
+				.latitude(latitude)
+				.longitude(longitude)
+				.changeVersion(1L)
+				.build();
+	}
+}
@@ -9,6 +9,11 @@
 -- ============================================================================
 
 DROP VIEW IF EXISTS signalement_problem_view CASCADE;
+DROP TABLE IF EXISTS firebase_outbox CASCADE;
+DROP TABLE IF EXISTS sync_watermark CASCADE;
+DROP TABLE IF EXISTS signalement_tombstone CASCADE;
+DROP TABLE IF EXISTS signalement_read_model CASCADE;
+DROP SEQUENCE IF EXISTS signalement_change_seq;
 DROP TABLE IF EXISTS signalement_work CASCADE;
 DROP TABLE IF EXISTS signalement_status CASCADE;
 DROP TABLE IF EXISTS signalement_photo CASCADE;
@@ -122,7 +127,9 @@ CREATE TABLE company (
     address VARCHAR(255) NOT NULL,
     phone VARCHAR(30),
     email VARCHAR(150),
-    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    -- Clé de l'upsert des entreprises créées par la synchronisation Firebase
+    CONSTRAINT uk_company_name UNIQUE (name)
 );
 
 COMMENT ON TABLE company IS 'Table des entreprises responsables des travaux de réparation';
@@ -135,28 +142,47 @@ CREATE TABLE signalement (
     descriptions TEXT NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT NOW(),
     location VARCHAR(255) NOT NULL,
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
     picture TEXT,
     surface NUMERIC(12,2),
     firebase_id VARCHAR(255) UNIQUE,
+    -- Empreinte SHA-256 du dernier contenu envoyé vers Firestore (envoi sauté s'il est inchangé)
+    firebase_push_hash VARCHAR(64),
+    current_status_id BIGINT,
+    current_status_at TIMESTAMP,
+    -- Recherche plein texte (stemming français), recalculée par Postgres à chaque écriture
+    search_vector TSVECTOR GENERATED ALWAYS AS (to_tsvector('french', coalesce(descriptions, ''))) STORED,
     CONSTRAINT fk_signalement_account FOREIGN KEY (id_account) REFERENCES account(id) ON DELETE CASCADE,
-    CONSTRAINT fk_signalement_type FOREIGN KEY (id_type_problem) REFERENCES type_problem(id)
+    CONSTRAINT fk_signalement_type FOREIGN KEY (id_type_problem) REFERENCES type_problem(id),
+    CONSTRAINT fk_signalement_current_status FOREIGN KEY (current_status_id) REFERENCES status_signalement(id)
 );
 
 COMMENT ON TABLE signalement IS 'Table principale des signalements de problèmes routiers';
 COMMENT ON COLUMN signalement.location IS 'Coordonnées GPS format: latitude,longitude';
+COMMENT ON COLUMN signalement.latitude IS 'Latitude numérique extraite de location';
+COMMENT ON COLUMN signalement.longitude IS 'Longitude numérique extraite de location';
 COMMENT ON COLUMN signalement.firebase_id IS 'ID du document Firebase pour synchronisation mobile';
+COMMENT ON COLUMN signalement.current_status_id IS 'Dernier statut (copie de la dernière ligne de signalement_status)';
 
 -- Table des photos de signalement
 CREATE TABLE signalement_photo (
     id BIGSERIAL PRIMARY KEY,
     id_signalement BIGINT NOT NULL,
-    photo_data TEXT NOT NULL,
+    photo_data TEXT,
+    content_hash VARCHAR(64),
+    content_type VARCHAR(100),
+    content_length BIGINT,
     photo_order INTEGER,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_signalement_photo_signalement FOREIGN KEY (id_signalement) REFERENCES signalement(id) ON DELETE CASCADE
 );
 
-COMMENT ON TABLE signalement_photo IS 'Photos associées aux signalements (Base64 ou URL)';
+CREATE INDEX idx_signalement_photo_content_hash ON signalement_photo(content_hash);
+
+COMMENT ON TABLE signalement_photo IS 'Photos associées aux signalements (contenu dans le stockage de photos, ou URL externe)';
+COMMENT ON COLUMN signalement_photo.content_hash IS 'SHA-256 du contenu binaire dans le stockage de photos';
+COMMENT ON COLUMN signalement_photo.photo_data IS 'URL externe, ou Base64 hérité en attente de migration vers le stockage';
 
 -- Table des statuts de signalement (historique)
 CREATE TABLE signalement_status (
@@ -215,6 +241,69 @@ CREATE TABLE security_log (
 
 COMMENT ON TABLE security_log IS 'Logs d audit et de sécurité des actions utilisateurs';
 
+-- Modèle de lecture: une ligne plate par signalement (type, statut courant, dernier travail, entreprise)
+CREATE TABLE signalement_read_model (
+    signalement_id BIGINT PRIMARY KEY REFERENCES signalement(id) ON DELETE CASCADE,
+    type_problem_id BIGINT NOT NULL,
+    type_problem VARCHAR(100),
+    illustration_problem TEXT,
+    description TEXT,
+    location VARCHAR(255),
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    date_problem TIMESTAMP NOT NULL,
+    surface_m2 NUMERIC(12,2),
+    firebase_id VARCHAR(255),
+    status_id BIGINT,
+    etat VARCHAR(50),
+    status_date TIMESTAMP,
+    budget NUMERIC(14,2),
+    work_start_date DATE,
+    work_end_date_estimation DATE,
+    work_real_end_date DATE,
+    company_id BIGINT,
+    company_name VARCHAR(150),
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    change_version BIGINT NOT NULL DEFAULT 0,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+COMMENT ON TABLE signalement_read_model IS 'Projection de signalement_problem_view maintenue par l application à chaque écriture';
+
+-- Version de changement: tirée à chaque mise à jour d'une ligne du modèle de lecture ou suppression
+CREATE SEQUENCE signalement_change_seq;
+
+-- Signalements supprimés, pour le flux de changements (GET /api/signalements/changes)
+CREATE TABLE signalement_tombstone (
+    signalement_id BIGINT PRIMARY KEY,
+    change_version BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+COMMENT ON TABLE signalement_tombstone IS 'Signalements supprimés exposés par le flux de changements';
+
+-- Position de la dernière synchronisation incrémentale depuis Firestore (createdAt + id du document)
+CREATE TABLE sync_watermark (
+    name VARCHAR(100) PRIMARY KEY,
+    last_created_at TIMESTAMP,
+    last_document_id VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+COMMENT ON TABLE sync_watermark IS 'Curseurs de synchronisation incrémentale (Firestore -> PostgreSQL)';
+
+CREATE TABLE firebase_outbox (
+    signalement_id BIGINT PRIMARY KEY REFERENCES signalement(id) ON DELETE CASCADE,
+    revision BIGINT NOT NULL DEFAULT 1,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+COMMENT ON TABLE firebase_outbox IS 'Signalements modifiés localement, en attente d''envoi vers Firestore (PostgreSQL -> Firestore)';
+
 -- ============================================================================
 -- PARTIE 4: CRÉATION DES INDEX
 -- ============================================================================
@@ -226,6 +315,15 @@ CREATE INDEX idx_signalement_account ON signalement(id_account);
 CREATE INDEX idx_signalement_type ON signalement(id_type_problem);
 CREATE INDEX idx_signalement_firebase_id ON signalement(firebase_id);
 CREATE INDEX idx_signalement_created_at ON signalement(created_at);
+CREATE INDEX idx_signalement_created_at_id ON signalement(created_at, id);
+CREATE INDEX idx_signalement_current_status ON signalement(current_status_id, created_at, id);
+CREATE INDEX idx_signalement_search ON signalement USING GIN (search_vector);
+CREATE INDEX idx_read_model_date ON signalement_read_model(date_problem, signalement_id);
+CREATE INDEX idx_read_model_status ON signalement_read_model(status_id, date_problem, signalement_id);
+CREATE INDEX idx_read_model_company ON signalement_read_model(company_id);
+CREATE INDEX idx_read_model_change_version ON signalement_read_model(change_version);
+CREATE INDEX idx_tombstone_change_version ON signalement_tombstone(change_version);
+CREATE INDEX idx_firebase_outbox_next_attempt ON firebase_outbox(next_attempt_at);
 
 CREATE INDEX idx_signalement_photo_signalement ON signalement_photo(id_signalement);
 
@@ -369,11 +467,11 @@ INSERT INTO company (name, siret, address, phone, email) VALUES
 -- ============================================================================
 
 -- Signalement de démonstration
-INSERT INTO signalement (id_account, id_type_problem, descriptions, location, created_at, surface) 
+INSERT INTO signalement (id_account, id_type_problem, descriptions, location, latitude, longitude, created_at, surface) 
 VALUES 
-    (1, 7, 'Nid de poule dangereux près de l''école, risque pour les piétons', '-18.8792,47.5079', NOW() - INTERVAL '5 days', 2.5),
-    (1, 8, 'Route bloquée suite à un éboulement', '-18.9100,47.5200', NOW() - INTERVAL '3 days', 50.0),
-    (1, 14, 'Accident signalé - débris sur la chaussée', '-18.8650,47.5150', NOW() - INTERVAL '1 day', NULL);
+    (1, 7, 'Nid de poule dangereux près de l''école, risque pour les piétons', '-18.8792,47.5079', -18.8792, 47.5079, NOW() - INTERVAL '5 days', 2.5),
+    (1, 8, 'Route bloquée suite à un éboulement', '-18.9100,47.5200', -18.9100, 47.5200, NOW() - INTERVAL '3 days', 50.0),
+    (1, 14, 'Accident signalé - débris sur la chaussée', '-18.8650,47.5150', -18.8650, 47.5150, NOW() - INTERVAL '1 day', NULL);
 
 -- Statuts initiaux des signalements de démonstration
 INSERT INTO signalement_status (id_signalement, id_status_signalement, updated_at)
@@ -382,11 +480,54 @@ VALUES
     (2, 1, NOW() - INTERVAL '3 days'),  -- nouveau
     (3, 1, NOW() - INTERVAL '1 day');   -- nouveau
 
+-- Statut courant dénormalisé (maintenu ensuite par l'application)
+UPDATE signalement s
+SET current_status_id = ls.id_status_signalement,
+    current_status_at = ls.updated_at
+FROM (
+    SELECT DISTINCT ON (id_signalement) id_signalement, id_status_signalement, updated_at
+    FROM signalement_status
+    ORDER BY id_signalement, updated_at DESC
+) ls
+WHERE ls.id_signalement = s.id;
+
 -- Travail assigné au premier signalement
 INSERT INTO signalement_work (id_signalement, id_company, start_date, end_date_estimation, price)
 VALUES 
     (1, 1, CURRENT_DATE - 3, CURRENT_DATE + 4, 150000.00);
 
+-- Modèle de lecture des données de démonstration
+INSERT INTO signalement_read_model (signalement_id, type_problem_id, type_problem, illustration_problem,
+    description, location, latitude, longitude, date_problem, surface_m2, firebase_id,
+    status_id, etat, status_date, budget, work_start_date, work_end_date_estimation, work_real_end_date,
+    company_id, company_name, photo_count, change_version, refreshed_at)
+SELECT s.id, tp.id, tp.libelle, tp.icone,
+       s.descriptions, s.location, s.latitude, s.longitude, s.created_at, s.surface, s.firebase_id,
+       s.current_status_id, cs.libelle, s.current_status_at,
+       lw.price, lw.start_date, lw.end_date_estimation, lw.real_end_date,
+       c.id, c.name,
+       (SELECT COUNT(*) FROM signalement_photo p WHERE p.id_signalement = s.id),
+       nextval('signalement_change_seq'),
+       NOW()
+FROM signalement s
+JOIN type_problem tp ON tp.id = s.id_type_problem
+LEFT JOIN status_signalement cs ON cs.id = s.current_status_id
+LEFT JOIN LATERAL (
+    SELECT sw.price, sw.start_date, sw.end_date_estimation, sw.real_end_date, sw.id_company
+    FROM signalement_work sw
+    WHERE sw.id_signalement = s.id
+    ORDER BY sw.start_date DESC NULLS LAST, sw.id DESC
+    LIMIT 1
+) lw ON true
+LEFT JOIN company c ON c.id = lw.id_company;
+
+-- Identifiants alloués par blocs de 50 par Hibernate (insertions JDBC par lots):
+-- l'incrément des séquences doit être égal à l'allocationSize des entités
+ALTER SEQUENCE signalement_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_status_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_work_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_photo_id_seq INCREMENT BY 50;
+
 -- ============================================================================
 -- FIN DU SCRIPT
 -- ============================================================================
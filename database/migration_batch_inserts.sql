@@ -0,0 +1,7 @@
+-- Migration: Insertions JDBC par lots pour l'import Firebase
+-- Hibernate alloue les identifiants par blocs de 50 (séquence + optimiseur pooled):
+-- l'incrément des séquences doit être égal à l'allocationSize des entités
+ALTER SEQUENCE signalement_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_status_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_work_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_photo_id_seq INCREMENT BY 50;
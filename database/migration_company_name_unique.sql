@@ -0,0 +1,30 @@
+-- Migration: Nom d'entreprise unique
+-- Les entreprises créées par la synchronisation Firebase sont retrouvées par leur nom avec
+-- INSERT ... ON CONFLICT (name): les doublons existants sont d'abord fusionnés dans la plus ancienne entreprise
+
+CREATE TEMP TABLE company_duplicate AS
+SELECT id, MIN(id) OVER (PARTITION BY name) AS keep_id
+FROM company;
+
+UPDATE signalement_work w
+SET id_company = d.keep_id
+FROM company_duplicate d
+WHERE w.id_company = d.id AND d.id <> d.keep_id;
+
+UPDATE signalement_read_model r
+SET company_id = d.keep_id
+FROM company_duplicate d
+WHERE r.company_id = d.id AND d.id <> d.keep_id;
+
+DELETE FROM company c
+USING company_duplicate d
+WHERE c.id = d.id AND d.id <> d.keep_id;
+
+DROP TABLE company_duplicate;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_company_name') THEN
+        ALTER TABLE company ADD CONSTRAINT uk_company_name UNIQUE (name);
+    END IF;
+END $$;
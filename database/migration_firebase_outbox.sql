@@ -0,0 +1,14 @@
+-- Migration: Envoi asynchrone des modifications locales vers Firestore
+-- Une ligne par signalement modifié, écrite dans la transaction de la modification; les modifications
+-- successives d'un même signalement sont regroupées (revision incrémentée)
+CREATE TABLE IF NOT EXISTS firebase_outbox (
+    signalement_id BIGINT PRIMARY KEY REFERENCES signalement(id) ON DELETE CASCADE,
+    revision BIGINT NOT NULL DEFAULT 1,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_firebase_outbox_next_attempt ON firebase_outbox(next_attempt_at);
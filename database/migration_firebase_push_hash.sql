@@ -0,0 +1,3 @@
+-- Migration: Envoi groupé vers Firestore
+-- Empreinte du dernier contenu envoyé: un signalement inchangé n'est pas renvoyé
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS firebase_push_hash VARCHAR(64);
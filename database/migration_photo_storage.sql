@@ -0,0 +1,7 @@
+-- Migration: Stockage binaire des photos adressé par contenu (SHA-256)
+-- Le Base64 existant est transféré vers le stockage par la tâche de migration du backend
+ALTER TABLE signalement_photo ALTER COLUMN photo_data DROP NOT NULL;
+ALTER TABLE signalement_photo ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE signalement_photo ADD COLUMN IF NOT EXISTS content_type VARCHAR(100);
+ALTER TABLE signalement_photo ADD COLUMN IF NOT EXISTS content_length BIGINT;
+CREATE INDEX IF NOT EXISTS idx_signalement_photo_content_hash ON signalement_photo(content_hash);
@@ -0,0 +1,5 @@
+-- Migration: Index de la table session
+-- La recherche par token utilise la contrainte unique; les index suivants servent à la révocation
+-- des sessions d'un compte bloqué et à la purge des sessions expirées
+CREATE INDEX IF NOT EXISTS idx_session_account ON session(id_account);
+CREATE INDEX IF NOT EXISTS idx_session_expires ON session(expires_at);
@@ -0,0 +1,19 @@
+-- Migration: Flux de changements des signalements (GET /api/signalements/changes)
+-- Chaque ligne du modèle de lecture porte une version tirée d'une séquence à chaque mise à jour
+CREATE SEQUENCE IF NOT EXISTS signalement_change_seq;
+
+ALTER TABLE signalement_read_model ADD COLUMN IF NOT EXISTS change_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS signalement_tombstone (
+    signalement_id BIGINT PRIMARY KEY,
+    change_version BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Versionner les lignes existantes
+UPDATE signalement_read_model
+SET change_version = nextval('signalement_change_seq')
+WHERE change_version = 0;
+
+CREATE INDEX IF NOT EXISTS idx_read_model_change_version ON signalement_read_model(change_version);
+CREATE INDEX IF NOT EXISTS idx_tombstone_change_version ON signalement_tombstone(change_version);
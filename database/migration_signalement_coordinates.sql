@@ -0,0 +1,9 @@
+-- Migration: Coordonnées numériques des signalements, extraites de location ("lat,lng")
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS latitude DOUBLE PRECISION;
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS longitude DOUBLE PRECISION;
+
+UPDATE signalement
+SET latitude = split_part(location, ',', 1)::DOUBLE PRECISION,
+    longitude = split_part(location, ',', 2)::DOUBLE PRECISION
+WHERE latitude IS NULL
+  AND location ~ '^\s*-?[0-9]+(\.[0-9]+)?\s*,\s*-?[0-9]+(\.[0-9]+)?\s*$';
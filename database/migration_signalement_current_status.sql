@@ -0,0 +1,16 @@
+-- Migration: Statut courant dénormalisé sur signalement (filtrage par statut par parcours d'index)
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS current_status_id BIGINT REFERENCES status_signalement(id);
+ALTER TABLE signalement ADD COLUMN IF NOT EXISTS current_status_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_signalement_current_status ON signalement(current_status_id, created_at, id);
+
+UPDATE signalement s
+SET current_status_id = ls.id_status_signalement,
+    current_status_at = ls.updated_at
+FROM (
+    SELECT DISTINCT ON (id_signalement) id_signalement, id_status_signalement, updated_at
+    FROM signalement_status
+    ORDER BY id_signalement, updated_at DESC
+) ls
+WHERE ls.id_signalement = s.id
+  AND s.current_status_id IS DISTINCT FROM ls.id_status_signalement;
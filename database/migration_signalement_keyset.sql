@@ -0,0 +1,2 @@
+-- Migration: Index pour la pagination par curseur des signalements (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_signalement_created_at_id ON signalement(created_at, id);
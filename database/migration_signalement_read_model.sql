@@ -0,0 +1,54 @@
+-- Migration: Modèle de lecture des signalements (une ligne plate par signalement)
+-- Maintenu ensuite par l'application; reconstructible via POST /api/signalements/read-model/rebuild
+CREATE TABLE IF NOT EXISTS signalement_read_model (
+    signalement_id BIGINT PRIMARY KEY REFERENCES signalement(id) ON DELETE CASCADE,
+    type_problem_id BIGINT NOT NULL,
+    type_problem VARCHAR(100),
+    illustration_problem TEXT,
+    description TEXT,
+    location VARCHAR(255),
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    date_problem TIMESTAMP NOT NULL,
+    surface_m2 NUMERIC(12,2),
+    firebase_id VARCHAR(255),
+    status_id BIGINT,
+    etat VARCHAR(50),
+    status_date TIMESTAMP,
+    budget NUMERIC(14,2),
+    work_start_date DATE,
+    work_end_date_estimation DATE,
+    work_real_end_date DATE,
+    company_id BIGINT,
+    company_name VARCHAR(150),
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_read_model_date ON signalement_read_model(date_problem, signalement_id);
+CREATE INDEX IF NOT EXISTS idx_read_model_status ON signalement_read_model(status_id, date_problem, signalement_id);
+CREATE INDEX IF NOT EXISTS idx_read_model_company ON signalement_read_model(company_id);
+
+INSERT INTO signalement_read_model (signalement_id, type_problem_id, type_problem, illustration_problem,
+    description, location, latitude, longitude, date_problem, surface_m2, firebase_id,
+    status_id, etat, status_date, budget, work_start_date, work_end_date_estimation, work_real_end_date,
+    company_id, company_name, photo_count, refreshed_at)
+SELECT s.id, tp.id, tp.libelle, tp.icone,
+       s.descriptions, s.location, s.latitude, s.longitude, s.created_at, s.surface, s.firebase_id,
+       s.current_status_id, cs.libelle, s.current_status_at,
+       lw.price, lw.start_date, lw.end_date_estimation, lw.real_end_date,
+       c.id, c.name,
+       (SELECT COUNT(*) FROM signalement_photo p WHERE p.id_signalement = s.id),
+       NOW()
+FROM signalement s
+JOIN type_problem tp ON tp.id = s.id_type_problem
+LEFT JOIN status_signalement cs ON cs.id = s.current_status_id
+LEFT JOIN LATERAL (
+    SELECT sw.price, sw.start_date, sw.end_date_estimation, sw.real_end_date, sw.id_company
+    FROM signalement_work sw
+    WHERE sw.id_signalement = s.id
+    ORDER BY sw.start_date DESC NULLS LAST, sw.id DESC
+    LIMIT 1
+) lw ON true
+LEFT JOIN company c ON c.id = lw.id_company
+ON CONFLICT (signalement_id) DO NOTHING;
@@ -0,0 +1,8 @@
+-- Migration: Recherche plein texte sur les descriptions des signalements
+-- Colonne générée: Postgres la recalcule à chaque INSERT/UPDATE (création, import Firebase)
+-- Attention: l'ajout d'une colonne STORED réécrit la table
+ALTER TABLE signalement
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+    GENERATED ALWAYS AS (to_tsvector('french', coalesce(descriptions, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_signalement_search ON signalement USING GIN (search_vector);
@@ -0,0 +1,8 @@
+-- Migration: Synchronisation incrémentale depuis Firestore
+-- Mémorise le dernier document importé (createdAt, id) pour ne lire que les documents plus récents
+CREATE TABLE IF NOT EXISTS sync_watermark (
+    name VARCHAR(100) PRIMARY KEY,
+    last_created_at TIMESTAMP,
+    last_document_id VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
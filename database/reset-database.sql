@@ -2,6 +2,11 @@
 -- ATTENTION: Ceci supprimera TOUTES les données!
 
 -- Supprimer les tables dans l'ordre des dépendances
+DROP TABLE IF EXISTS firebase_outbox CASCADE;
+DROP TABLE IF EXISTS sync_watermark CASCADE;
+DROP TABLE IF EXISTS signalement_tombstone CASCADE;
+DROP TABLE IF EXISTS signalement_read_model CASCADE;
+DROP SEQUENCE IF EXISTS signalement_change_seq;
 DROP TABLE IF EXISTS signalement_work CASCADE;
 DROP TABLE IF EXISTS signalement_status CASCADE;
 DROP TABLE IF EXISTS signalement_photo CASCADE;
@@ -59,7 +64,9 @@ CREATE TABLE company (
   address VARCHAR(255) NOT NULL,
   phone VARCHAR(30),
   email VARCHAR(150),
-  created_at TIMESTAMP NOT NULL DEFAULT NOW()
+  created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+  -- Clé de l'upsert des entreprises créées par la synchronisation Firebase
+  CONSTRAINT uk_company_name UNIQUE (name)
 );
 
 CREATE TABLE config (
@@ -75,15 +82,26 @@ CREATE TABLE signalement (
     descriptions TEXT NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT NOW(),
     location VARCHAR(255) NOT NULL,
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
     picture TEXT,
     surface NUMERIC(12,2),
-    firebase_id VARCHAR(255) UNIQUE
+    firebase_id VARCHAR(255) UNIQUE,
+    -- Empreinte SHA-256 du dernier contenu envoyé vers Firestore (envoi sauté s'il est inchangé)
+    firebase_push_hash VARCHAR(64),
+    current_status_id BIGINT REFERENCES status_signalement(id),
+    current_status_at TIMESTAMP,
+    -- Recherche plein texte (stemming français), recalculée par Postgres à chaque écriture
+    search_vector TSVECTOR GENERATED ALWAYS AS (to_tsvector('french', coalesce(descriptions, ''))) STORED
 );
 
 CREATE TABLE IF NOT EXISTS signalement_photo (
     id BIGSERIAL PRIMARY KEY,
     id_signalement BIGINT NOT NULL,
-    photo_data TEXT NOT NULL,
+    photo_data TEXT,
+    content_hash VARCHAR(64),
+    content_type VARCHAR(100),
+    content_length BIGINT,
     photo_order INTEGER,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_signalement_photo_signalement
@@ -95,6 +113,9 @@ CREATE TABLE IF NOT EXISTS signalement_photo (
 CREATE INDEX IF NOT EXISTS idx_signalement_photo_signalement_id
     ON signalement_photo(id_signalement);
 
+CREATE INDEX IF NOT EXISTS idx_signalement_photo_content_hash
+    ON signalement_photo(content_hash);
+
 CREATE TABLE signalement_status (
     id BIGSERIAL PRIMARY KEY,
     id_signalement BIGINT NOT NULL REFERENCES signalement(id) ON DELETE CASCADE,
@@ -102,6 +123,61 @@ CREATE TABLE signalement_status (
     updated_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+CREATE TABLE signalement_read_model (
+    signalement_id BIGINT PRIMARY KEY REFERENCES signalement(id) ON DELETE CASCADE,
+    type_problem_id BIGINT NOT NULL,
+    type_problem VARCHAR(100),
+    illustration_problem TEXT,
+    description TEXT,
+    location VARCHAR(255),
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    date_problem TIMESTAMP NOT NULL,
+    surface_m2 NUMERIC(12,2),
+    firebase_id VARCHAR(255),
+    status_id BIGINT,
+    etat VARCHAR(50),
+    status_date TIMESTAMP,
+    budget NUMERIC(14,2),
+    work_start_date DATE,
+    work_end_date_estimation DATE,
+    work_real_end_date DATE,
+    company_id BIGINT,
+    company_name VARCHAR(150),
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    change_version BIGINT NOT NULL DEFAULT 0,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Version de changement: tirée à chaque mise à jour d'une ligne du modèle de lecture ou suppression
+CREATE SEQUENCE signalement_change_seq;
+
+-- Signalements supprimés, pour le flux de changements (GET /api/signalements/changes)
+CREATE TABLE signalement_tombstone (
+    signalement_id BIGINT PRIMARY KEY,
+    change_version BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Position de la dernière synchronisation incrémentale depuis Firestore (createdAt + id du document)
+CREATE TABLE sync_watermark (
+    name VARCHAR(100) PRIMARY KEY,
+    last_created_at TIMESTAMP,
+    last_document_id VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Signalements modifiés localement, en attente d'envoi vers Firestore (une ligne par signalement)
+CREATE TABLE firebase_outbox (
+    signalement_id BIGINT PRIMARY KEY REFERENCES signalement(id) ON DELETE CASCADE,
+    revision BIGINT NOT NULL DEFAULT 1,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
 CREATE TABLE signalement_work (
     id BIGSERIAL PRIMARY KEY,
     id_signalement BIGINT NOT NULL REFERENCES signalement(id) ON DELETE CASCADE,
@@ -160,9 +236,19 @@ CREATE INDEX IF NOT EXISTS idx_security_log_resource ON security_log(resource_ty
 CREATE INDEX idx_signalement_account ON signalement(id_account);
 CREATE INDEX idx_signalement_type ON signalement(id_type_problem);
 CREATE INDEX idx_signalement_firebase_id ON signalement(firebase_id);
+CREATE INDEX idx_signalement_created_at_id ON signalement(created_at, id);
+CREATE INDEX idx_signalement_current_status ON signalement(current_status_id, created_at, id);
+CREATE INDEX idx_signalement_search ON signalement USING GIN (search_vector);
+CREATE INDEX idx_read_model_date ON signalement_read_model(date_problem, signalement_id);
+CREATE INDEX idx_read_model_status ON signalement_read_model(status_id, date_problem, signalement_id);
+CREATE INDEX idx_read_model_company ON signalement_read_model(company_id);
+CREATE INDEX idx_read_model_change_version ON signalement_read_model(change_version);
+CREATE INDEX idx_tombstone_change_version ON signalement_tombstone(change_version);
+CREATE INDEX idx_firebase_outbox_next_attempt ON firebase_outbox(next_attempt_at);
 CREATE INDEX idx_signalement_status_signalement ON signalement_status(id_signalement);
 CREATE INDEX idx_signalement_work_signalement ON signalement_work(id_signalement);
 CREATE INDEX idx_session_account ON session(id_account);
+CREATE INDEX idx_session_expires ON session(expires_at);
 
 
 
@@ -208,6 +294,37 @@ INSERT INTO company (id, name, siret, address, phone, email) VALUES
 INSERT INTO config (max_attempts, session_duration) VALUES (5, 60);
 
 
-INSERT INTO signalement (id_account, id_type_problem, descriptions, location, created_at) 
+INSERT INTO signalement (id_account, id_type_problem, descriptions, location, latitude, longitude, created_at) 
 VALUES 
-  (1, 1, 'Nid de poule dangereux rue de la République', '-18.8792,47.5079', NOW());
+  (1, 1, 'Nid de poule dangereux rue de la République', '-18.8792,47.5079', -18.8792, 47.5079, NOW());
+
+INSERT INTO signalement_read_model (signalement_id, type_problem_id, type_problem, illustration_problem,
+    description, location, latitude, longitude, date_problem, surface_m2, firebase_id,
+    status_id, etat, status_date, budget, work_start_date, work_end_date_estimation, work_real_end_date,
+    company_id, company_name, photo_count, change_version, refreshed_at)
+SELECT s.id, tp.id, tp.libelle, tp.icone,
+       s.descriptions, s.location, s.latitude, s.longitude, s.created_at, s.surface, s.firebase_id,
+       s.current_status_id, cs.libelle, s.current_status_at,
+       lw.price, lw.start_date, lw.end_date_estimation, lw.real_end_date,
+       c.id, c.name,
+       (SELECT COUNT(*) FROM signalement_photo p WHERE p.id_signalement = s.id),
+       nextval('signalement_change_seq'),
+       NOW()
+FROM signalement s
+JOIN type_problem tp ON tp.id = s.id_type_problem
+LEFT JOIN status_signalement cs ON cs.id = s.current_status_id
+LEFT JOIN LATERAL (
+    SELECT sw.price, sw.start_date, sw.end_date_estimation, sw.real_end_date, sw.id_company
+    FROM signalement_work sw
+    WHERE sw.id_signalement = s.id
+    ORDER BY sw.start_date DESC NULLS LAST, sw.id DESC
+    LIMIT 1
+) lw ON true
+LEFT JOIN company c ON c.id = lw.id_company;
+
+-- Identifiants alloués par blocs de 50 par Hibernate (insertions JDBC par lots):
+-- l'incrément des séquences doit être égal à l'allocationSize des entités
+ALTER SEQUENCE signalement_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_status_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_work_id_seq INCREMENT BY 50;
+ALTER SEQUENCE signalement_photo_id_seq INCREMENT BY 50;
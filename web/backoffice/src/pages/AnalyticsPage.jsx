@@ -1,5 +1,6 @@
 import { useEffect, useMemo, useState, useCallback } from 'react'
 import { useNavigate } from 'react-router-dom'
+import { waitForSyncJob } from '../syncJobs'
 
 const normalizeStatus = (status) => {
   const s = (status || '').toString().toLowerCase()
@@ -347,8 +348,8 @@ export default function AnalyticsPage() {
         throw new Error('Erreur lors de la synchronisation')
       }
 
-      const data = await response.json()
-      setSyncMessage(`✓ ${data.imported} signalements importés depuis Firebase`)
+      const job = await waitForSyncJob(response, token)
+      setSyncMessage(`✓ ${job.result} signalements importés depuis Firebase`)
       await fetchSignalements()
       await fetchUnsynced()
     } catch (err) {
@@ -2,6 +2,7 @@ import { useState, useEffect, useCallback } from 'react'
 import { MapContainer, TileLayer, Marker, Popup } from 'react-leaflet'
 import { useNavigate } from 'react-router-dom'
 import { iconByType } from '../mapIcons'
+import { waitForSyncJob } from '../syncJobs'
 import SignalementDetailModal from '../components/SignalementDetailModal'
 import NotificationToast from '../components/NotificationToast'
 import { useNotifications } from '../hooks/useNotifications'
@@ -197,8 +198,8 @@ export default function DashboardPage() {
         throw new Error('Erreur lors de la synchronisation')
       }
 
-      const data = await response.json()
-      setSyncMessage(`✓ ${data.imported} signalements importés depuis Firebase`)
+      const job = await waitForSyncJob(response, token)
+      setSyncMessage(`✓ ${job.result} signalements importés depuis Firebase`)
 
       // Rafraîchir la liste des signalements locaux
       await fetchSignalements()
@@ -232,8 +233,8 @@ export default function DashboardPage() {
         throw new Error('Erreur lors de l\'envoi vers mobile')
       }
 
-      const data = await response.json()
-      setSyncMessage(`✓ ${data.exported} signalements envoyés vers l'application mobile`)
+      const job = await waitForSyncJob(response, token)
+      setSyncMessage(`✓ ${job.result} signalements envoyés vers l'application mobile`)
 
       // Rafraîchir la liste
       await fetchSignalements()
@@ -263,8 +264,8 @@ export default function DashboardPage() {
         throw new Error('Erreur lors de la synchronisation des statuts')
       }
 
-      const data = await response.json()
-      setSyncMessage(`✓ ${data.synced} statuts synchronisés vers l'application mobile`)
+      const job = await waitForSyncJob(response, token)
+      setSyncMessage(`✓ ${job.result} statuts synchronisés vers l'application mobile`)
     } catch (err) {
       console.error('Erreur:', err)
       setSyncMessage(`✗ Erreur: ${err.message}`)
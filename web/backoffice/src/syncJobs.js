@@ -0,0 +1,25 @@
+// Les synchronisations Firebase s'exécutent en arrière-plan côté serveur (202 + travail à suivre)
+const POLL_INTERVAL_MS = 1000
+
+const sleep = (ms) => new Promise(resolve => setTimeout(resolve, ms))
+
+// Attend la fin du travail retourné par un POST /api/signalements/sync/...; retourne son état final
+export const waitForSyncJob = async (response, token) => {
+  let job = await response.json()
+  while (job.state === 'PENDING' || job.state === 'RUNNING') {
+    await sleep(POLL_INTERVAL_MS)
+    const poll = await fetch(`/api/signalements/sync/jobs/${job.id}`, {
+      headers: {
+        'Authorization': `Bearer ${token}`,
+      },
+    })
+    if (!poll.ok) {
+      throw new Error('Suivi de la synchronisation impossible')
+    }
+    job = await poll.json()
+  }
+  if (job.state === 'FAILED') {
+    throw new Error(job.error || 'Synchronisation en échec')
+  }
+  return job
+}
@@ -92,7 +92,7 @@ export default function PhotosPage() {
               onClick={() => openModal(photo)}
             >
               <img
-                src={photo.photoData}
+                src={`${photo.url}?size=256`}
                 alt={`Photo ${photo.photoOrder || index + 1}`}
                 className="photo-thumbnail"
               />
@@ -120,7 +120,7 @@ export default function PhotosPage() {
               ×
             </button>
             <img
-              src={selectedPhoto.photoData}
+              src={selectedPhoto.url}
               alt={`Photo ${selectedPhoto.photoOrder}`}
               className="modal-image"
             />